@@ -0,0 +1,80 @@
+package org.mark.maven.amp.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.SymbolTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ClassDef#imports(String)} and {@link ClassDef#imports(int)} against the stream scan over a set of names they
+ * replaced, for typical import counts. Each invocation looks up one imported name and one name that is not imported.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassDefImportsBenchmark
+{
+    @Param({"10", "20", "40", "80"})
+    private int importCount;
+
+    private Set<String> importNames;
+    private ClassDef classDef;
+    private String imported;
+    private String notImported;
+    private int importedId;
+    private int notImportedId;
+
+    @Setup
+    public void setup()
+    {
+        importNames = new HashSet<>();
+        for(int i = 0; i < importCount; i++)
+        {
+            importNames.add("org.mark.bench.module" + (i % 7) + ".pkg" + (i % 3) + ".Imported" + i);
+        }
+        SymbolTable symbols = new SymbolTable();
+        classDef = new ClassDef(symbols, "org.mark.bench.Importer", importNames, false);
+        // Built at runtime so the lookups hash a distinct instance, like names produced by a parser.
+        imported = new StringBuilder("org.mark.bench.module").append((importCount - 1) % 7).
+                                     append(".pkg").append((importCount - 1) % 3).
+                                     append(".Imported").append(importCount - 1).toString();
+        notImported = "org.mark.bench.module0.pkg0.NotImported";
+        importedId = symbols.idOf(imported);
+        notImportedId = symbols.intern(notImported);
+    }
+
+    @Benchmark
+    public boolean hashedLookup()
+    {
+        return classDef.imports(imported) & classDef.imports(notImported);
+    }
+
+    @Benchmark
+    public boolean idLookup()
+    {
+        return classDef.imports(importedId) & classDef.imports(notImportedId);
+    }
+
+    @Benchmark
+    public boolean streamScan()
+    {
+        return importNames.stream().anyMatch(i -> i.equals(imported)) &
+               importNames.stream().anyMatch(i -> i.equals(notImported));
+    }
+}
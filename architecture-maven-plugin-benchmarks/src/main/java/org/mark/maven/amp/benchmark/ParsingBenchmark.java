@@ -0,0 +1,72 @@
+package org.mark.maven.amp.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.mark.maven.amp.ParallelClassDefParser;
+import org.mark.maven.amp.ParserType;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.SymbolTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing the source files of a {@link SyntheticReactor} into class definitions with each source parser, on a single
+ * thread so the numbers are the cost of the parser rather than of the machine's core count. BYTECODE is not measured
+ * as it needs compiled classes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark
+{
+    @Param({"JAVAPARSER", "JAVAPARSER_DEEP", "SCANNER"})
+    private ParserType parser;
+
+    @Param({"1000", "10000"})
+    private int files;
+
+    private Path srcDir;
+    private List<List<Path>> srcPaths;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        srcDir = Files.createTempDirectory("amp-bench-src");
+        srcPaths = Collections.singletonList(new SyntheticReactor(10, files, 42L).writeSources(srcDir));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(srcDir))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<List<ClassDef>> parse() throws InterruptedException
+    {
+        return new ParallelClassDefParser(parser.createClassDefCreator(new SymbolTable()), 1).parse(srcPaths);
+    }
+}
@@ -0,0 +1,114 @@
+package org.mark.maven.amp.benchmark;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * {@link Log} that discards every message but keeps their total length, so building the messages stays part of the
+ * measured work without printing to the console.
+ */
+final class QuietLog implements Log
+{
+    private long length;
+
+    long getLength()
+    {
+        return length;
+    }
+
+    private void consume(CharSequence content)
+    {
+        length += content.length();
+    }
+
+    @Override
+    public boolean isDebugEnabled()
+    {
+        return true;
+    }
+
+    @Override
+    public void debug(CharSequence content)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void debug(Throwable error)
+    {
+    }
+
+    @Override
+    public boolean isInfoEnabled()
+    {
+        return true;
+    }
+
+    @Override
+    public void info(CharSequence content)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void info(Throwable error)
+    {
+    }
+
+    @Override
+    public boolean isWarnEnabled()
+    {
+        return true;
+    }
+
+    @Override
+    public void warn(CharSequence content)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void warn(Throwable error)
+    {
+    }
+
+    @Override
+    public boolean isErrorEnabled()
+    {
+        return true;
+    }
+
+    @Override
+    public void error(CharSequence content)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error)
+    {
+        consume(content);
+    }
+
+    @Override
+    public void error(Throwable error)
+    {
+    }
+}
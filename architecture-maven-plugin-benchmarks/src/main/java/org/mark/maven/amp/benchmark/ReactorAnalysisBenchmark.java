@@ -0,0 +1,158 @@
+package org.mark.maven.amp.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mark.maven.amp.StabilityDirectionCheck;
+import org.mark.maven.amp.graph.BadFlowPath;
+import org.mark.maven.amp.graph.BadFlowPaths;
+import org.mark.maven.amp.graph.ComponentCycles;
+import org.mark.maven.amp.graph.DependencyCycle;
+import org.mark.maven.amp.graph.jgrapht.JGraphComponentGraph;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.model.SymbolTable;
+import org.mark.maven.amp.snapshot.ModelSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The analysis stages of the stability goal, each measured on its own against {@link SyntheticReactor} reactors.
+ *
+ * Each stage starts from the output of the previous one, prepared once per trial, so a regression shows up against
+ * the stage that caused it. The DOT export writes components.dot to the working directory as the goal does, the
+ * snapshot benchmarks a temporary file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ReactorAnalysisBenchmark
+{
+    /**
+     * Reactor shapes as modules:classes. Listed rather than crossed so every shape measured is the one its label names.
+     */
+    @Param({"10:1000", "10:50000", "100:1000", "100:50000", "1000:1000", "1000:50000", "1000:500000"})
+    private String shape;
+
+    private SymbolTable symbols;
+    private List<Component> components;
+    private Component midComponent;
+    private ReactorIndex index;
+    private Map<Component, ComponentInstability> instabilities;
+    private Path snapshotFile;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        symbols = new SymbolTable();
+        String[] modulesAndClasses = shape.split(":");
+        int modules = Integer.parseInt(modulesAndClasses[0]);
+        int classes = Integer.parseInt(modulesAndClasses[1]);
+        components = new SyntheticReactor(modules, classes, 42L).components(symbols);
+        midComponent = components.get(components.size() / 2);
+        index = new ReactorIndex(symbols, components);
+        instabilities = index.instabilities();
+        snapshotFile = Files.createTempFile("amp-snapshot", ".bin");
+        ModelSnapshot.write(snapshotFile, index, instabilities);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(Paths.get("components.dot"));
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    /**
+     * Building the class graph and component dependency matrix.
+     */
+    @Benchmark
+    public ReactorIndex index()
+    {
+        return new ReactorIndex(symbols, components);
+    }
+
+    /**
+     * The instability of a single component against the rest of the reactor, which indexes the whole reactor.
+     */
+    @Benchmark
+    public ComponentInstability instabilityAgainst()
+    {
+        return midComponent.instabilityAgainst(components);
+    }
+
+    /**
+     * The instability of every component from an existing index.
+     */
+    @Benchmark
+    public Map<Component, ComponentInstability> instabilities()
+    {
+        return index.instabilities();
+    }
+
+    @Benchmark
+    public long checkStabilityDirection()
+    {
+        QuietLog log = new QuietLog();
+        new StabilityDirectionCheck(index, instabilities, null, log).checkAll();
+        return log.getLength();
+    }
+
+    @Benchmark
+    public List<BadFlowPath> badFlowPaths()
+    {
+        return new BadFlowPaths(index, instabilities, 5).find();
+    }
+
+    @Benchmark
+    public List<DependencyCycle> cycles()
+    {
+        return new ComponentCycles(index).find();
+    }
+
+    @Benchmark
+    public void dotExport() throws IOException
+    {
+        new JGraphComponentGraph(index, instabilities).exportDot();
+    }
+
+    @Benchmark
+    public void snapshotWrite() throws IOException
+    {
+        ModelSnapshot.write(snapshotFile, index, instabilities);
+    }
+
+    /**
+     * Mapping a snapshot and reading the metrics of every component, without touching its classes.
+     */
+    @Benchmark
+    public double snapshotOpen() throws IOException
+    {
+        ModelSnapshot snapshot = ModelSnapshot.open(snapshotFile);
+        double distance = 0;
+        for(int comp = 0; comp < snapshot.getNumComponents(); comp++)
+        {
+            distance += snapshot.distance(comp);
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,168 @@
+package org.mark.maven.amp.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.SymbolTable;
+import org.mark.maven.amp.testsupport.ClassDefBuilder;
+import org.mark.maven.amp.testsupport.ModuleSourceBuilder;
+
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * Generates reproducible reactors for the benchmarks, either as {@link Component} instances or as source files.
+ *
+ * Classes are spread evenly over the modules. Each class imports a fixed number of names: half from its own module,
+ * most of the rest from modules earlier in the reactor, a few from later modules so some dependencies flow the wrong
+ * way and form cycles, and one from the JDK which the analysis must ignore. Every fifth class is abstract.
+ */
+public final class SyntheticReactor
+{
+    private static final int IMPORTS_PER_CLASS = 8;
+    private static final int ABSTRACT_EVERY = 5;
+
+    private final int numModules;
+    private final int numClasses;
+    private final long seed;
+
+    /**
+     * @param modules the number of modules in the reactor.
+     * @param classes the total number of classes across all modules, at least one per module.
+     * @param randomSeed seed for the choice of imports, the same seed always generates the same reactor.
+     * @throws IllegalArgumentException if there are no modules or fewer classes than modules.
+     */
+    public SyntheticReactor(int modules, int classes, long randomSeed)
+    {
+        if(modules < 1 || classes < modules)
+        {
+            throw new IllegalArgumentException("Need at least one class per module but got " + classes +
+                                               " classes for " + modules + " modules");
+        }
+        this.numModules = modules;
+        this.numClasses = classes;
+        this.seed = randomSeed;
+    }
+
+    /**
+     * @param symbols the table the classes are interned in, a new one per trial like the goal uses per run.
+     * @return one component per module, built with the test builders.
+     */
+    public List<Component> components(SymbolTable symbols)
+    {
+        Random random = new Random(seed);
+        List<Component> components = new ArrayList<>(numModules);
+        for(int module = 0; module < numModules; module++)
+        {
+            ModuleSourceBuilder sourceModule = aSourceModule().setName(moduleName(module));
+            for(int classIndex = 0; classIndex < classesIn(module); classIndex++)
+            {
+                ClassDefBuilder classDef = aClassDef(className(module, classIndex)).withSymbols(symbols).
+                                           setAbstract(classIndex % ABSTRACT_EVERY == 0).
+                                           withImport(importsFor(module, random));
+                sourceModule.withClassDef(classDef);
+            }
+            components.add(aComponent().setName(moduleName(module)).setSourceModule(sourceModule).build());
+        }
+        return components;
+    }
+
+    /**
+     * Writes one source file per class under the given directory in the usual package layout.
+     *
+     * @param srcDir the directory to write to, it must exist.
+     * @return the paths of the written files, in module order.
+     * @throws IOException if a file cannot be written.
+     */
+    public List<Path> writeSources(Path srcDir) throws IOException
+    {
+        Random random = new Random(seed);
+        List<Path> files = new ArrayList<>(numClasses);
+        for(int module = 0; module < numModules; module++)
+        {
+            Path pkgDir = Files.createDirectories(srcDir.resolve(moduleName(module).replace('.', '/')));
+            for(int classIndex = 0; classIndex < classesIn(module); classIndex++)
+            {
+                String simpleName = simpleName(classIndex);
+                Path file = pkgDir.resolve(simpleName + ".java");
+                String src = source(moduleName(module), simpleName, classIndex % ABSTRACT_EVERY == 0,
+                                    importsFor(module, random));
+                Files.write(file, src.getBytes(StandardCharsets.UTF_8));
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private String[] importsFor(int module, Random random)
+    {
+        String[] imports = new String[IMPORTS_PER_CLASS];
+        imports[0] = List.class.getName();
+        for(int i = 1; i < IMPORTS_PER_CLASS; i++)
+        {
+            int target;
+            int roll = random.nextInt(20);
+            if(roll < 10 || numModules == 1)
+            {
+                target = module;
+            }
+            else if(roll < 19 && module > 0)
+            {
+                target = random.nextInt(module);
+            }
+            else
+            {
+                target = random.nextInt(numModules);
+            }
+            imports[i] = className(target, random.nextInt(classesIn(target)));
+        }
+        return imports;
+    }
+
+    private static String source(String pkg, String simpleName, boolean isAbstract, String[] imports)
+    {
+        StringBuilder src = new StringBuilder();
+        src.append("package ").append(pkg).append(";\n\n");
+        for(String imported : imports)
+        {
+            src.append("import ").append(imported).append(";\n");
+        }
+        src.append("\n/**\n * Generated for benchmarking.\n */\n");
+        src.append("public ").append(isAbstract ? "abstract " : "").append("class ").append(simpleName).append("\n{\n");
+        src.append("    private final List<String> names = new java.util.ArrayList<>();\n\n");
+        src.append("    public int count(String prefix)\n    {\n");
+        src.append("        // Counts the names that start with the prefix\n");
+        src.append("        return (int) names.stream().filter(n -> n.startsWith(prefix)).count();\n    }\n\n");
+        src.append("    private static final class Holder\n    {\n");
+        src.append("        private final String value = \"").append(simpleName).append("\";\n    }\n");
+        src.append("}\n");
+        return src.toString();
+    }
+
+    private int classesIn(int module)
+    {
+        return numClasses / numModules + (module < numClasses % numModules ? 1 : 0);
+    }
+
+    private static String moduleName(int module)
+    {
+        return "org.mark.bench.module" + module;
+    }
+
+    private static String simpleName(int classIndex)
+    {
+        return "Class" + classIndex;
+    }
+
+    private static String className(int module, int classIndex)
+    {
+        return moduleName(module) + "." + simpleName(classIndex);
+    }
+}
@@ -1,6 +1,5 @@
 package org.mark.maven.amp;
 
-import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -12,7 +11,7 @@ public interface ClassDefCreator
     public static final class ClassDefCreationException extends Exception
     {
 
-        public ClassDefCreationException(String string, IOException e)
+        public ClassDefCreationException(String string, Throwable e)
         {
             super(string, e);
         }
@@ -20,4 +19,21 @@ public interface ClassDefCreator
     }
 
     List<ClassDef> createClassDefFor(Path srcFilePath) throws ClassDefCreationException;
+
+    /**
+     * @return identifies what this creator records for a file, class defs cached by a creator with a different
+     *         identity are not reused.
+     */
+    default String getIdentity()
+    {
+        return getClass().getName();
+    }
+
+    /**
+     * Drops whatever the calling thread keeps between files, such as a parser or read buffer, so it is not held on to
+     * by a thread that outlives the analysis. Called on each thread that created class defs once it has no more files.
+     */
+    default void releaseThread()
+    {
+    }
 }
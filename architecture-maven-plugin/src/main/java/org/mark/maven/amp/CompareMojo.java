@@ -0,0 +1,95 @@
+package org.mark.maven.amp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.mark.maven.amp.snapshot.ModelSnapshot;
+import org.mark.maven.amp.snapshot.ModuleDrift;
+import org.mark.maven.amp.snapshot.SnapshotComparison;
+
+/**
+ * Compares the snapshot written by the stability goal with an earlier one and fails the build when a module moved
+ * further from the main sequence than allowed.
+ */
+@Mojo(name = "compare",
+      defaultPhase = LifecyclePhase.VERIFY,
+      aggregator = true,
+      threadSafe = true)
+public final class CompareMojo extends AbstractMojo
+{
+    /**
+     * The snapshot to compare against, typically written by a build of the main branch.
+     */
+    @Parameter(property = "previousSnapshot", required = true)
+    private File previousSnapshot;
+
+    /**
+     * The snapshot of this build, written by the stability goal.
+     */
+    @Parameter(property = "currentSnapshot", defaultValue = "${project.build.directory}/amp-snapshot.bin",
+               required = true)
+    private File currentSnapshot;
+
+    /**
+     * The largest increase in the distance of a module from the main sequence that is allowed.
+     */
+    @Parameter(property = "maxDistanceIncrease", defaultValue = "0.1", required = false)
+    private double maxDistanceIncrease;
+
+    /**
+     * Whether to fail the build when a module exceeds maxDistanceIncrease, otherwise the modules are only logged.
+     */
+    @Parameter(property = "failOnDrift", defaultValue = "true", required = false)
+    private boolean failOnDrift;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        List<ModuleDrift> drifts;
+        try
+        {
+            drifts = SnapshotComparison.compare(ModelSnapshot.open(previousSnapshot.toPath()),
+                                                ModelSnapshot.open(currentSnapshot.toPath()));
+        }
+        catch (IOException e)
+        {
+            throw new MojoExecutionException("Unable to read snapshots: " + e.getMessage(), e);
+        }
+
+        List<ModuleDrift> exceeded = new ArrayList<>();
+        for(ModuleDrift drift : drifts)
+        {
+            if(drift.getDistanceIncrease() > maxDistanceIncrease)
+            {
+                getLog().warn(drift.toString());
+                exceeded.add(drift);
+            }
+            else if(drift.hasChanged())
+            {
+                getLog().info(drift.toString());
+            }
+        }
+        getLog().info("Compared " + drifts.size() + " modules against " + previousSnapshot + ", " + exceeded.size() +
+                      " moved more than " + maxDistanceIncrease + " further from the main sequence");
+
+        if(failOnDrift && !exceeded.isEmpty())
+        {
+            StringBuilder message = new StringBuilder("Distance from the main sequence increased by more than ");
+            message.append(maxDistanceIncrease).append(':');
+            for(ModuleDrift drift : exceeded)
+            {
+                message.append(System.lineSeparator()).append("  ").append(drift.getName()).append(' ').
+                        append(drift.getPreviousDistance()).append(" -> ").append(drift.getDistance());
+            }
+            throw new MojoFailureException(message.toString());
+        }
+    }
+}
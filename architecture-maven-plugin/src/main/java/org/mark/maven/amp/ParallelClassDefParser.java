@@ -0,0 +1,238 @@
+package org.mark.maven.amp;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mark.maven.amp.ClassDefCreator.ClassDefCreationException;
+import org.mark.maven.amp.metrics.PipelineMetrics;
+import org.mark.maven.amp.model.ClassDef;
+
+/**
+ * Fans source files out across a bounded pool of worker threads, each running the given {@link ClassDefCreator}.
+ *
+ * Files from every module share the one pool so small modules do not leave workers idle. The results are put back
+ * together in the order the files were given, so the {@link ClassDef} list of a module does not depend on which
+ * worker finished first.
+ *
+ * A file the creator fails on contributes no {@link ClassDef} instances and does not stop the others, its
+ * {@link ClassDefCreationException} is kept and reported through {@link #getFailures()} once every file is done, so
+ * one stray file does not throw away the work done on the rest of the reactor.
+ *
+ * Every thread that ran the creator, the calling thread included, has {@link ClassDefCreator#releaseThread()} called
+ * on it once it has no more files.
+ */
+public final class ParallelClassDefParser
+{
+    private static final long WORKER_EXIT_SECONDS = 10;
+
+    private static final class IndexedResult
+    {
+        private final int index;
+        private final List<ClassDef> classDefs;
+
+        private IndexedResult(int fileIndex, List<ClassDef> fileClassDefs)
+        {
+            this.index = fileIndex;
+            this.classDefs = fileClassDefs;
+        }
+    }
+
+    private final class ParserThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task)
+        {
+            Runnable releasing = () -> {
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    classDefCreator.releaseThread();
+                }
+            };
+            Thread worker = new Thread(PipelineMetrics.countingAllocations(releasing),
+                                       "amp-parser-" + threadCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        }
+    }
+
+    private final ClassDefCreator classDefCreator;
+    private final int numThreads;
+    private final Map<Path, ClassDefCreationException> failures = new LinkedHashMap<>();
+
+    /**
+     * @param creator the {@link ClassDefCreator} used by every worker, it must be thread safe.
+     * @param parseThreads the maximum number of worker threads, 1 parses on the calling thread.
+     */
+    public ParallelClassDefParser(ClassDefCreator creator, int parseThreads)
+    {
+        if(parseThreads < 1)
+        {
+            throw new IllegalArgumentException("parseThreads must be at least 1 but was " + parseThreads);
+        }
+        this.classDefCreator = creator;
+        this.numThreads = parseThreads;
+    }
+
+    /**
+     * Parses every source file of every module.
+     *
+     * @param moduleSrcs the source files of each module.
+     * @return the {@link ClassDef} instances of each module, in the same order as the given modules and files.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+     */
+    public List<List<ClassDef>> parse(List<List<Path>> moduleSrcs) throws InterruptedException
+    {
+        List<Path> allSrcs = new ArrayList<>();
+        moduleSrcs.forEach(allSrcs::addAll);
+
+        ClassDefCreationException[] fileFailures = new ClassDefCreationException[allSrcs.size()];
+        List<List<ClassDef>> fileResults;
+        if(numThreads == 1 || allSrcs.size() < 2)
+        {
+            fileResults = new ArrayList<>(allSrcs.size());
+            try
+            {
+                for(int i = 0; i < allSrcs.size(); i++)
+                {
+                    fileResults.add(parseFile(allSrcs.get(i), i, fileFailures));
+                }
+            }
+            finally
+            {
+                // The calling thread is the build's own and outlives the analysis
+                classDefCreator.releaseThread();
+            }
+        }
+        else
+        {
+            fileResults = parseConcurrently(allSrcs, fileFailures);
+        }
+
+        failures.clear();
+        for(int i = 0; i < fileFailures.length; i++)
+        {
+            if(fileFailures[i] != null)
+            {
+                failures.put(allSrcs.get(i), fileFailures[i]);
+            }
+        }
+
+        List<List<ClassDef>> moduleResults = new ArrayList<>(moduleSrcs.size());
+        int fileIndex = 0;
+        for(List<Path> srcs : moduleSrcs)
+        {
+            List<ClassDef> moduleClasses = new ArrayList<>();
+            for(int i = 0; i < srcs.size(); i++)
+            {
+                moduleClasses.addAll(fileResults.get(fileIndex++));
+            }
+            moduleResults.add(moduleClasses);
+        }
+        return moduleResults;
+    }
+
+    /**
+     * @return the files the creator failed on during the last {@link #parse(List)}, in the order they were given,
+     *         with the reason each was skipped.
+     */
+    public Map<Path, ClassDefCreationException> getFailures()
+    {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Runs the creator on one file, recording its failure at the file's index rather than throwing it. Unexpected
+     * runtime exceptions from the creator, such as parser bugs on unusual syntax, count as failures of the file too.
+     */
+    private List<ClassDef> parseFile(Path srcFilePath, int fileIndex, ClassDefCreationException[] fileFailures)
+    {
+        try
+        {
+            return classDefCreator.createClassDefFor(srcFilePath);
+        }
+        catch (ClassDefCreationException e)
+        {
+            fileFailures[fileIndex] = e;
+        }
+        catch (RuntimeException e)
+        {
+            fileFailures[fileIndex] = new ClassDefCreationException("Unexpected exception parsing src file " +
+                                                                    srcFilePath + ": " + e, e);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<List<ClassDef>> parseConcurrently(List<Path> allSrcs, ClassDefCreationException[] fileFailures)
+                    throws InterruptedException
+    {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(numThreads, allSrcs.size()),
+                                                               new ParserThreadFactory());
+        try
+        {
+            CompletionService<IndexedResult> completions = new ExecutorCompletionService<>(workers);
+            for(int i = 0; i < allSrcs.size(); i++)
+            {
+                int fileIndex = i;
+                Path srcFilePath = allSrcs.get(i);
+                completions.submit(() -> new IndexedResult(fileIndex, parseFile(srcFilePath, fileIndex, fileFailures)));
+            }
+
+            List<List<ClassDef>> fileResults = new ArrayList<>(allSrcs.size());
+            for(int i = 0; i < allSrcs.size(); i++)
+            {
+                fileResults.add(null);
+            }
+            for(int i = 0; i < allSrcs.size(); i++)
+            {
+                IndexedResult result = takeResult(completions);
+                fileResults.set(result.index, result.classDefs);
+            }
+            return fileResults;
+        }
+        finally
+        {
+            workers.shutdownNow();
+            // Workers record their allocation as they exit, which must happen before the parse stage stops
+            workers.awaitTermination(WORKER_EXIT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static IndexedResult takeResult(CompletionService<IndexedResult> completions) throws InterruptedException
+    {
+        try
+        {
+            return completions.take().get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Unexpected exception parsing sources", cause);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.mark.maven.amp;
+
+import java.util.List;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.mark.maven.amp.bytecode.ClassFileClassDefCreator;
+import org.mark.maven.amp.javaparser.JavaParserClassDefCreator;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.SymbolTable;
+import org.mark.maven.amp.scanner.HeaderScanningClassDefCreator;
+
+/**
+ * The {@link ClassDefCreator} implementations selectable through the stability goal's parser parameter.
+ */
+public enum ParserType
+{
+    /** Full JavaParser AST, see {@link JavaParserClassDefCreator}. */
+    JAVAPARSER
+    {
+        @Override
+        public ClassDefCreator createClassDefCreator(SymbolTable symbols, LanguageLevel languageLevel)
+        {
+            return new JavaParserClassDefCreator(symbols, false, languageLevel);
+        }
+    },
+
+    /**
+     * Full JavaParser AST that also records the types referenced in the code, such as classes of the same package,
+     * which need no import. See {@link JavaParserClassDefCreator#JavaParserClassDefCreator(SymbolTable, boolean)}.
+     */
+    JAVAPARSER_DEEP
+    {
+        @Override
+        public ClassDefCreator createClassDefCreator(SymbolTable symbols, LanguageLevel languageLevel)
+        {
+            return new JavaParserClassDefCreator(symbols, true, languageLevel);
+        }
+    },
+
+    /** Token based scan of the declarations, see {@link HeaderScanningClassDefCreator}. */
+    SCANNER
+    {
+        @Override
+        public ClassDefCreator createClassDefCreator(SymbolTable symbols, LanguageLevel languageLevel)
+        {
+            return new HeaderScanningClassDefCreator(symbols);
+        }
+    },
+
+    /** Compiled classes rather than sources, see {@link ClassFileClassDefCreator}. */
+    BYTECODE
+    {
+        @Override
+        public ClassDefCreator createClassDefCreator(SymbolTable symbols, LanguageLevel languageLevel)
+        {
+            return new ClassFileClassDefCreator(symbols);
+        }
+
+        @Override
+        public boolean readsCompiledClasses()
+        {
+            return true;
+        }
+
+        @Override
+        public List<ClassDef> moduleClassDefs(List<ClassDef> fileClassDefs)
+        {
+            return ClassFileClassDefCreator.nestUnderOwners(fileClassDefs);
+        }
+    };
+
+    /**
+     * @param symbols the table of the analysis the created classes are interned in.
+     * @param languageLevel the Java version sources are parsed as, only the JavaParser based creators validate
+     *            against it.
+     * @return a new {@link ClassDefCreator} of this type.
+     */
+    public abstract ClassDefCreator createClassDefCreator(SymbolTable symbols, LanguageLevel languageLevel);
+
+    /**
+     * @param symbols the table of the analysis the created classes are interned in.
+     * @return a new {@link ClassDefCreator} of this type at the
+     *         {@link JavaParserClassDefCreator#DEFAULT_LANGUAGE_LEVEL default language level}.
+     */
+    public ClassDefCreator createClassDefCreator(SymbolTable symbols)
+    {
+        return createClassDefCreator(symbols, JavaParserClassDefCreator.DEFAULT_LANGUAGE_LEVEL);
+    }
+
+    /**
+     * @param fileClassDefs the {@link ClassDef} instances created from every file of one module.
+     * @return the classes of the module, with nested types as children of their top level class. Only BYTECODE, which
+     *         reads every nested class from a file of its own, needs to put them together.
+     */
+    public List<ClassDef> moduleClassDefs(List<ClassDef> fileClassDefs)
+    {
+        return fileClassDefs;
+    }
+
+    /**
+     * @return whether the {@link ClassDefCreator} reads .class files from the build output rather than .java files
+     *         from the source directory.
+     */
+    public boolean readsCompiledClasses()
+    {
+        return false;
+    }
+
+    /**
+     * @return the extension of the files the {@link ClassDefCreator} reads.
+     */
+    public String getFileExtension()
+    {
+        return readsCompiledClasses() ? "class" : "java";
+    }
+}
@@ -0,0 +1,202 @@
+package org.mark.maven.amp;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.util.MatchPatterns;
+
+/**
+ * Finds the files of each module that are handed to the {@link ClassDefCreator}.
+ *
+ * Each root is walked once with {@link Files#walkFileTree}, using the attributes the walk already read rather than
+ * asking the file system about every entry again. A file is kept when its path relative to the root matches one of
+ * the Ant style include patterns and none of the exclude patterns. package-info files declare no types and are always
+ * skipped, as are generated-sources directories when configured. Modules are walked concurrently, the files of each
+ * module are sorted so the result does not depend on the file system's ordering.
+ */
+public final class SourceDiscovery
+{
+    public static final String GENERATED_SOURCES = "generated-sources";
+
+    private static final String PACKAGE_INFO = "package-info";
+
+    private static final class DiscoveryThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task)
+        {
+            Thread worker = new Thread(task, "amp-discovery-" + threadCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        }
+    }
+
+    private final String extension;
+    private final MatchPatterns includes;
+    private final MatchPatterns excludes;
+    private final boolean skipGenerated;
+    private final int numThreads;
+
+    /**
+     * @param fileExtension the extension of the files to find, without the dot.
+     * @param includePatterns Ant style patterns of the files to find relative to a root, all files with the
+     *            extension when empty.
+     * @param excludePatterns Ant style patterns of the files to leave out relative to a root.
+     * @param skipGeneratedSources whether to skip directories named generated-sources.
+     * @param discoveryThreads the maximum number of modules walked at once, 1 walks them on the calling thread.
+     */
+    public SourceDiscovery(String fileExtension, List<String> includePatterns, List<String> excludePatterns,
+                           boolean skipGeneratedSources, int discoveryThreads)
+    {
+        if(discoveryThreads < 1)
+        {
+            throw new IllegalArgumentException("discoveryThreads must be at least 1 but was " + discoveryThreads);
+        }
+        this.extension = "." + fileExtension;
+        this.includes = isEmpty(includePatterns) ? MatchPatterns.from("**/*" + extension) :
+                                                   MatchPatterns.from(includePatterns);
+        this.excludes = MatchPatterns.from(isEmpty(excludePatterns) ? Collections.emptyList() : excludePatterns);
+        this.skipGenerated = skipGeneratedSources;
+        this.numThreads = discoveryThreads;
+    }
+
+    /**
+     * @param moduleRoots the directories to search of each module, roots that do not exist are ignored.
+     * @return the files found for each module, in the same order as the given modules.
+     * @throws IOException if a directory cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the walks.
+     */
+    public List<List<Path>> discover(List<List<Path>> moduleRoots) throws IOException, InterruptedException
+    {
+        List<List<Path>> moduleFiles = new ArrayList<>(moduleRoots.size());
+        if(numThreads == 1 || moduleRoots.size() < 2)
+        {
+            for(List<Path> roots : moduleRoots)
+            {
+                moduleFiles.add(discoverModule(roots));
+            }
+            return moduleFiles;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(numThreads, moduleRoots.size()),
+                                                               new DiscoveryThreadFactory());
+        try
+        {
+            List<Future<List<Path>>> walks = new ArrayList<>(moduleRoots.size());
+            for(List<Path> roots : moduleRoots)
+            {
+                walks.add(workers.submit(() -> discoverModule(roots)));
+            }
+            for(Future<List<Path>> walk : walks)
+            {
+                moduleFiles.add(takeResult(walk));
+            }
+            return moduleFiles;
+        }
+        finally
+        {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * @param roots the directories to search, roots that do not exist are ignored.
+     * @return the sorted files found under all of the roots.
+     * @throws IOException if a directory cannot be read.
+     */
+    public List<Path> discoverModule(List<Path> roots) throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        for(Path root : roots)
+        {
+            if(Files.isDirectory(root))
+            {
+                Files.walkFileTree(root, new MatchingFileVisitor(root, files));
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private final class MatchingFileVisitor extends SimpleFileVisitor<Path>
+    {
+        private final Path root;
+        private final List<Path> files;
+
+        private MatchingFileVisitor(Path walkRoot, List<Path> matchedFiles)
+        {
+            this.root = walkRoot;
+            this.files = matchedFiles;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+        {
+            if(skipGenerated && !dir.equals(root) && dir.getFileName().toString().equals(GENERATED_SOURCES))
+            {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+        {
+            String fileName = file.getFileName().toString();
+            if(attrs.isRegularFile() && fileName.endsWith(extension) && !fileName.equals(PACKAGE_INFO + extension))
+            {
+                String relativePath = root.relativize(file).toString();
+                if(includes.matches(relativePath, true) && !excludes.matches(relativePath, true))
+                {
+                    files.add(file);
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
+
+    private static List<Path> takeResult(Future<List<Path>> walk) throws IOException, InterruptedException
+    {
+        try
+        {
+            return walk.get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if(cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Unexpected exception discovering sources", cause);
+        }
+    }
+
+    private static boolean isEmpty(List<String> patterns)
+    {
+        return patterns == null || patterns.isEmpty();
+    }
+}
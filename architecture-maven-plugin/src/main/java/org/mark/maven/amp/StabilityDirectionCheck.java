@@ -0,0 +1,96 @@
+package org.mark.maven.amp;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * Warns about every component that depends upon a less stable component. Dependencies should flow from unstable
+ * components towards stable ones.
+ *
+ * Only the components a component fans out to are checked, they are already gathered by the {@link ReactorIndex}.
+ * Components named in the modules list get the classes behind each dependency logged as well.
+ */
+public final class StabilityDirectionCheck
+{
+    private final ReactorIndex index;
+    private final Map<Component, ComponentInstability> allReports;
+    private final List<String> modules;
+    private final Log log;
+
+    /**
+     * @param reactorIndex the index the instabilities were calculated with.
+     * @param instabilities the instability of every component in the index.
+     * @param detailModules names of the components to log details for, may be null.
+     * @param log where to report the results.
+     */
+    public StabilityDirectionCheck(ReactorIndex reactorIndex, Map<Component, ComponentInstability> instabilities,
+                                   List<String> detailModules, Log log)
+    {
+        this.index = reactorIndex;
+        this.allReports = instabilities;
+        this.modules = detailModules == null ? Collections.emptyList() : detailModules;
+        this.log = log;
+    }
+
+    /**
+     * Checks every component of the index.
+     */
+    public void checkAll()
+    {
+        allReports.keySet().forEach(this::check);
+    }
+
+    /**
+     * @param sourceComp the component whose dependencies are checked.
+     */
+    public void check(Component sourceComp)
+    {
+        ComponentInstability instability = allReports.get(sourceComp);
+        for(Component outsideComp : instability.getOutCompDeps())
+        {
+            ComponentInstability outsideInstability = allReports.get(outsideComp);
+
+            log.debug("Checking stability as " + sourceComp.getName() + " depends upon " + outsideComp.getName());
+            if(modules.contains(sourceComp.getName()))
+            {
+                log.info("DETAILS for " + sourceComp.getName());
+                Map<ClassDef, Set<ClassDef>> dependents = index.dependents(sourceComp, outsideComp);
+                log.info("There are " + dependents.size());
+                dependents.forEach((imported, importers) ->
+                    importers.forEach(importer -> log.info(importer.getFullQualName() + " imports " + imported.getFullQualName()))
+                );
+            }
+
+            // Unstable ---> stable is good
+            if(instability.compareTo(outsideInstability) > 0)
+            {
+                log.warn("More stable " + sourceComp.getName() +
+                         "(" + instability.getInstabilityValue() + ") " +
+                         "depends upon less stable component " +
+                         outsideComp.getName() +
+                         "(" + outsideInstability.getInstabilityValue() + ")");
+
+                if(modules.stream().anyMatch(modIn -> modIn.contains(sourceComp.getName())))
+                {
+                    log.warn("Fan Out Explode");
+                    for(ClassDef dep : instability.getOutClassDeps())
+                    {
+                        log.info(dep.getFullQualName());
+                    }
+                }
+            }
+            else
+            {
+                log.debug("Stability ok " + instability.getInstabilityValue() + " > " + outsideInstability.getInstabilityValue());
+            }
+        }
+    }
+}
@@ -2,33 +2,50 @@ package org.mark.maven.amp;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.IntStream;
 
-import org.apache.commons.io.FilenameUtils;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.mark.maven.amp.ClassDefCreator.ClassDefCreationException;
+import org.mark.maven.amp.cache.CachingClassDefCreator;
+import org.mark.maven.amp.graph.BadFlowPath;
+import org.mark.maven.amp.graph.BadFlowPaths;
+import org.mark.maven.amp.graph.ClassGraphFormat;
+import org.mark.maven.amp.graph.ComponentCycles;
+import org.mark.maven.amp.graph.DependencyCycle;
 import org.mark.maven.amp.graph.DirectedComponentGraph;
 import org.mark.maven.amp.graph.jgrapht.JGraphComponentGraph;
-import org.mark.maven.amp.javaparser.JavaParserClassDefCreator;
+import org.mark.maven.amp.incremental.Baseline;
+import org.mark.maven.amp.incremental.GitChangedFiles;
+import org.mark.maven.amp.metrics.PipelineMetrics;
+import org.mark.maven.amp.metrics.Stage;
 import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ClassGraph;
 import org.mark.maven.amp.model.Component;
 import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.Granularity;
 import org.mark.maven.amp.model.ModuleSource;
+import org.mark.maven.amp.model.NestedTypePolicy;
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.model.SymbolTable;
+import org.mark.maven.amp.report.ReportFormat;
+import org.mark.maven.amp.snapshot.ModelSnapshot;
 
 @Mojo(name = "stability",
       defaultPhase = LifecyclePhase.PROCESS_SOURCES,
@@ -36,6 +53,10 @@ import org.mark.maven.amp.model.ModuleSource;
       threadSafe = true)
 public final class StabilityMojo extends AbstractMojo
 {
+    private static final String CACHE_FILE = "amp-classdef.cache";
+    private static final String METRICS_FILE = "amp-metrics.json";
+    private static final String SNAPSHOT_FILE = "amp-snapshot.bin";
+
     @Parameter(defaultValue = "${project}", readonly = true)
     private MavenProject project;
 
@@ -57,61 +78,320 @@ public final class StabilityMojo extends AbstractMojo
     @Parameter(property = "modules", required = false)
     private List<String> modules;
 
-    private final ClassDefCreator classDefCreator;
+    /**
+     * Number of threads used to find and parse source files. Defaults to the number of available processors, 1 works
+     * sequentially on the build thread.
+     */
+    @Parameter(property = "parseThreads", required = false)
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
 
-    public StabilityMojo()
-    {
-        this.classDefCreator = new JavaParserClassDefCreator();
-    }
+    /**
+     * Whether to cache the parsed class definitions of each source file in the output directory between runs. Only
+     * files whose size or last modified time changed are parsed again.
+     */
+    @Parameter(property = "useCache", defaultValue = "true", required = false)
+    private boolean useCache;
+
+    /**
+     * How source files are turned into class definitions, JAVAPARSER builds a full syntax tree while SCANNER only
+     * tokenizes the declarations and is considerably faster. JAVAPARSER_DEEP also records the classes each file refers
+     * to without importing them, such as classes of its own package, at up to twice the cost of JAVAPARSER. BYTECODE
+     * reads the compiled classes of each module instead of its sources, falling back to the module jar when there is
+     * no output directory, so the project must have been compiled first.
+     */
+    @Parameter(property = "parser", defaultValue = "JAVAPARSER", required = false)
+    private ParserType parser;
+
+    /**
+     * Ant style patterns of the files to analyse, relative to each source root, or to the output directory with the
+     * BYTECODE parser. Every file with the parser's extension is analysed by default.
+     */
+    @Parameter(property = "includes", required = false)
+    private List<String> includes;
+
+    /**
+     * Ant style patterns of the files to leave out, relative to each source root or output directory.
+     */
+    @Parameter(property = "excludes", required = false)
+    private List<String> excludes;
+
+    /**
+     * Whether to leave out sources generated during the build, that is any source root or directory named
+     * generated-sources.
+     */
+    @Parameter(property = "skipGeneratedSources", defaultValue = "true", required = false)
+    private boolean skipGeneratedSources;
+
+    /**
+     * Git revision, typically the main branch, the baseline was built from. When set and the baseline file exists only
+     * the modules with files changed since the revision in the local working tree are parsed, the classes of every
+     * other module are taken from the baseline.
+     */
+    @Parameter(property = "changedSince", required = false)
+    private String changedSince;
+
+    /**
+     * The baseline file read when changedSince is set and written when writeBaseline is set.
+     */
+    @Parameter(property = "baseline", defaultValue = "${project.build.directory}/amp-baseline.bin", required = false)
+    private File baseline;
+
+    /**
+     * Whether to save the classes and metrics of every module to the baseline file, for later builds that set
+     * changedSince. Usually set on builds of the main branch.
+     */
+    @Parameter(property = "writeBaseline", defaultValue = "false", required = false)
+    private boolean writeBaseline;
+
+    /**
+     * Whether to save the analysed model, every component with its metrics, class and import, to amp-snapshot.bin in
+     * the output directory for later goals and tools to load without parsing the reactor again.
+     */
+    @Parameter(property = "writeSnapshot", defaultValue = "true", required = false)
+    private boolean writeSnapshot;
+
+    /**
+     * The reports written to the output directory. CSV holds the main sequence coordinates of each component, JSONL
+     * the same along with fan in, fan out and class counts, CLASS_EDGES every class level dependency in the reactor.
+     */
+    @Parameter(property = "reportFormats", defaultValue = "CSV", required = false)
+    private List<ReportFormat> reportFormats;
+
+    /**
+     * Whether to fail the build when components depend upon each other in a cycle. Cycles are always logged, the
+     * build fails after the reports are written.
+     */
+    @Parameter(property = "failOnCycles", defaultValue = "false", required = false)
+    private boolean failOnCycles;
+
+    /**
+     * The most dependencies logged either side of a dependency upon a less stable component, when logging the
+     * shortest dependency path through it.
+     */
+    @Parameter(property = "maxFlowPathDepth", defaultValue = "5", required = false)
+    private int maxFlowPathDepth;
+
+    /**
+     * The class level dependency graphs written to the output directory alongside components.dot. GRAPHML for graph
+     * tools, CSV as an edge list and BINARY as a compact edge list of class indices. None are written by default.
+     */
+    @Parameter(property = "classGraphFormats", required = false)
+    private List<ClassGraphFormat> classGraphFormats = new ArrayList<>();
+
+    /**
+     * What a component is: MODULE for one component per module, PACKAGE for one per package across the reactor.
+     */
+    @Parameter(property = "granularity", defaultValue = "MODULE", required = false)
+    private Granularity granularity;
+
+    /**
+     * At PACKAGE granularity, the number of leading package segments that name a component, so 3 groups
+     * org.mark.maven.amp.model and org.mark.maven.amp.report into org.mark.maven. 0 uses the whole package.
+     */
+    @Parameter(property = "packageDepth", defaultValue = "0", required = false)
+    private int packageDepth;
+
+    /**
+     * Which nested types count as classes in each component's class counts and abstraction: TOP_LEVEL for none,
+     * MEMBERS for member types but not local classes, ALL for every named type. Nested types always share their top
+     * level class' dependencies, the BYTECODE parser adds the references of each nested class file to its top level
+     * class.
+     */
+    @Parameter(property = "nestedTypes", defaultValue = "TOP_LEVEL", required = false)
+    private NestedTypePolicy nestedTypes;
+
+    /**
+     * The Java version the JAVAPARSER parsers read sources as, such as JAVA_8, JAVA_11 or JAVA_17. Files using syntax
+     * beyond it, or that do not parse at all, are skipped.
+     */
+    @Parameter(property = "languageLevel", defaultValue = "JAVA_17", required = false)
+    private LanguageLevel languageLevel;
+
+    /**
+     * Whether to fail the build when any file could not be parsed. Skipped files are always listed as warnings, the
+     * build fails after the reports are written.
+     */
+    @Parameter(property = "failOnParseErrors", defaultValue = "false", required = false)
+    private boolean failOnParseErrors;
 
     @Override
-    public void execute() throws MojoExecutionException
+    public void execute() throws MojoExecutionException, MojoFailureException
     {
-        List<ModuleSource> srcModules = new ArrayList<>();
+        if(parseThreads < 1)
+        {
+            throw new MojoExecutionException("parseThreads must be at least 1 but was " + parseThreads);
+        }
+        if(maxFlowPathDepth < 0)
+        {
+            throw new MojoExecutionException("maxFlowPathDepth must not be negative but was " + maxFlowPathDepth);
+        }
+        if(packageDepth < 0)
+        {
+            throw new MojoExecutionException("packageDepth must not be negative but was " + packageDepth);
+        }
+
+        // Every name of this run is interned here and released with it, a long lived build JVM keeps none of them
+        SymbolTable symbols = new SymbolTable();
+        PipelineMetrics metrics = new PipelineMetrics("stability");
+        Stage discovery = metrics.start("discovery");
+        Baseline previousBaseline = null;
+        if(changedSince != null && granularity != Granularity.MODULE)
+        {
+            getLog().warn("changedSince needs MODULE granularity, analysing every module");
+        }
+        else if(changedSince != null)
+        {
+            previousBaseline = readBaseline(symbols);
+        }
+        Set<String> changedModules = previousBaseline == null ? null : changedModules();
+        if(changedModules == null)
+        {
+            previousBaseline = null;
+        }
+
+        List<String> moduleNames = new ArrayList<>();
+        List<List<Path>> moduleRoots = new ArrayList<>();
+        List<Path> moduleJars = new ArrayList<>();
+        List<List<ClassDef>> reusedClassDefs = new ArrayList<>();
         for(MavenProject moduleProject : reactorProjects)
         {
             getLog().debug("Scanning module " + moduleProject.getArtifactId());
-            List<ClassDef> moduleClasses = new ArrayList<>();
-            File srcDir = new File(moduleProject.getBuild().getSourceDirectory());
-            if(srcDir.exists())
-            {
-                getLog().debug("Source dir available, gathering stability metrics from " + srcDir.toString());
-                List<Path> srcs = gatherSrcPaths(srcDir);
-                getLog().debug("Number source files: " +  srcs.size());
-                for (Path srcFilePath : srcs)
-                {
-                    try
-                    {
-                        moduleClasses.addAll(classDefCreator.createClassDefFor(srcFilePath));
-                    }
-                    catch (ClassDefCreationException e)
-                    {
-                        throw new MojoExecutionException("Error creating class def", e);
-                    }
-                }
+            String moduleName = moduleProject.getArtifactId();
+            if(previousBaseline != null && previousBaseline.contains(moduleName) && !changedModules.contains(moduleName))
+            {
+                getLog().debug("Module unchanged since " + changedSince + ", using baseline classes");
+                moduleNames.add(moduleName);
+                moduleRoots.add(Collections.emptyList());
+                moduleJars.add(null);
+                reusedClassDefs.add(previousBaseline.getClassDefs(moduleName));
+                continue;
+            }
+            List<Path> roots = sourceRootsOf(moduleProject);
+            if(!roots.isEmpty())
+            {
+                getLog().debug("Gathering stability metrics from " + roots);
+                moduleNames.add(moduleProject.getArtifactId());
+                moduleRoots.add(roots);
+                moduleJars.add(null);
+                reusedClassDefs.add(null);
+            }
+            else if(parser.readsCompiledClasses() && isJar(moduleProject.getArtifact().getFile()))
+            {
+                getLog().debug("Output dir unavailable, gathering stability metrics from module jar");
+                moduleNames.add(moduleProject.getArtifactId());
+                moduleRoots.add(Collections.emptyList());
+                moduleJars.add(moduleProject.getArtifact().getFile().toPath());
+                reusedClassDefs.add(null);
+            }
+        }
+        List<List<Path>> moduleSrcs = discoverSources(moduleRoots);
+        for(int i = 0; i < moduleJars.size(); i++)
+        {
+            if(moduleJars.get(i) != null)
+            {
+                moduleSrcs.set(i, Collections.singletonList(moduleJars.get(i)));
             }
+        }
+        discovery.count("modules", moduleSrcs.size());
+        discovery.count("baselineModules", reusedClassDefs.stream().filter(Objects::nonNull).count());
+        discovery.count("files", moduleSrcs.stream().mapToLong(List::size).sum());
+        discovery.stop();
 
-            if(!moduleClasses.isEmpty())
+        Stage parsing = metrics.start("parse");
+
+        ClassDefCreator creator = parser.createClassDefCreator(symbols, languageLevel);
+        CachingClassDefCreator cache = null;
+        if(useCache)
+        {
+            cache = new CachingClassDefCreator(symbols, creator, new File(outputDirectory, CACHE_FILE).toPath());
+            try
             {
-                srcModules.add(new ModuleSource(moduleProject.getArtifactId(), moduleClasses));
+                cache.load();
             }
+            catch (IOException e)
+            {
+                getLog().warn("Ignoring unreadable class def cache: " + e.getMessage());
+            }
+            creator = cache;
         }
 
+        getLog().debug("Parsing sources with " + parseThreads + " threads");
+        List<List<ClassDef>> moduleClassDefs;
+        Map<Path, ClassDefCreationException> parseFailures;
+        try
+        {
+            ParallelClassDefParser classDefParser = new ParallelClassDefParser(creator, parseThreads);
+            moduleClassDefs = classDefParser.parse(moduleSrcs);
+            moduleClassDefs.replaceAll(parser::moduleClassDefs);
+            parseFailures = classDefParser.getFailures();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while parsing sources", e);
+        }
 
-        getLog().debug("All sources processed");
-        List<Component> components = new ArrayList<>();
-        for(ModuleSource srcModule : srcModules)
+        parsing.count("files", moduleSrcs.stream().mapToLong(List::size).sum());
+        parsing.count("classes", moduleClassDefs.stream().mapToLong(List::size).sum());
+        parsing.count("skippedFiles", parseFailures.size());
+        if(cache != null)
         {
-            Component component = new Component(srcModule.getName(), srcModule);
-            components.add(component);
+            parsing.count("cacheHits", cache.getHits());
+            parsing.count("cacheMisses", cache.getMisses());
+            getLog().info("Class def cache: " + cache.getHits() + " files unchanged, " + cache.getMisses() + " parsed");
+            try
+            {
+                cache.save();
+            }
+            catch (IOException e)
+            {
+                getLog().warn("Unable to save class def cache: " + e.getMessage());
+            }
         }
 
+        for(int i = 0; i < reusedClassDefs.size(); i++)
+        {
+            if(reusedClassDefs.get(i) != null)
+            {
+                moduleClassDefs.set(i, reusedClassDefs.get(i));
+            }
+        }
+        parsing.stop();
+
+        Stage componentMetrics = metrics.start("componentMetrics");
+        List<ModuleSource> srcModules = new ArrayList<>();
+        for(int i = 0; i < moduleNames.size(); i++)
+        {
+            List<ClassDef> moduleClasses = moduleClassDefs.get(i);
+            if(!moduleClasses.isEmpty())
+            {
+                srcModules.add(new ModuleSource(moduleNames.get(i), moduleClasses));
+            }
+        }
+
+        getLog().debug("All sources processed");
+        List<Component> components = granularity.componentsOf(srcModules, packageDepth, nestedTypes);
+
         // report
-        Map<Component, ComponentInstability> allReports = new HashMap<>();
+        ReactorIndex index = new ReactorIndex(symbols, components);
+        Map<Component, ComponentInstability> allReports = index.instabilities();
+        ClassGraph classGraph = index.getClassGraph();
+        componentMetrics.count("components", components.size());
+        componentMetrics.count("classes", classGraph.getNumClasses());
+        componentMetrics.count("importsProcessed", IntStream.range(0, classGraph.getNumClasses()).
+                                                   mapToLong(node -> classGraph.classAt(node).getImportIds().size()).
+                                                   sum());
+        componentMetrics.count("importEdges", classGraph.getNumEdges());
+        componentMetrics.stop();
+        if(previousBaseline != null)
+        {
+            logBaselineChanges(previousBaseline, changedModules, allReports);
+        }
+        long componentDeps = allReports.values().stream().mapToLong(inst -> inst.getOutCompDeps().size()).sum();
+
         for(Component comp : components)
         {
-            ComponentInstability instability = comp.instabilityAgainst(components);
-            allReports.put(comp, instability);
+            ComponentInstability instability = allReports.get(comp);
 
             getLog().info("------ Module -------");
             getLog().info(comp.getName());
@@ -121,124 +401,264 @@ public final class StabilityMojo extends AbstractMojo
             getLog().info("FanIn = " + instability.getFanIn() + " FanOut = " + instability.getFanOut());
             getLog().info("Instability = " + instability.getInstabilityValue());
             getLog().info("Main sequence = (" + instability.getInstabilityValue() + ", " + comp.getAbstraction() + ")");
-            getLog().info("Distance = " + Math.abs(comp.getAbstraction() + instability.getInstabilityValue() -1));
+            getLog().info("Distance = " + instability.getDistance());
         }
 
+        Stage graphExport = metrics.start("graphExport");
         try
         {
-            DirectedComponentGraph depGraph = new JGraphComponentGraph(allReports);
+            DirectedComponentGraph depGraph = new JGraphComponentGraph(index, allReports);
             depGraph.exportDot();
+            for(ClassGraphFormat format : classGraphFormats)
+            {
+                Path classGraphFile = depGraph.exportClassGraph(format, outputDirectory.toPath());
+                getLog().info("Written " + format + " class graph to " + classGraphFile);
+            }
         }
         catch (IOException e1)
         {
             throw new MojoExecutionException(e1.getMessage(), e1);
         }
+        graphExport.count("vertices", components.size()).count("edges", componentDeps).
+                    count("classGraphs", classGraphFormats.size()).stop();
+
+        Stage stabilityCheck = metrics.start("stabilityCheck");
+        new StabilityDirectionCheck(index, allReports, modules, getLog()).checkAll();
+        List<BadFlowPath> badFlowPaths = new BadFlowPaths(index, allReports, maxFlowPathDepth).find();
+        for(BadFlowPath path : badFlowPaths)
+        {
+            getLog().info("Dependency flow through less stable " + path.getTarget().getName() + ": " + path);
+        }
+        stabilityCheck.count("componentDependencies", componentDeps).count("badFlowPaths", badFlowPaths.size()).stop();
+
+        Stage cycleCheck = metrics.start("cycleCheck");
+        List<DependencyCycle> cycles = new ComponentCycles(index).find();
+        for(DependencyCycle cycle : cycles)
+        {
+            getLog().warn("Dependency cycle between " + cycle.getComponents().size() + " components: " + cycle);
+        }
+        cycleCheck.count("cycles", cycles.size()).stop();
+
+        Stage reports = metrics.start("reports");
+        for(ReportFormat format : reportFormats)
+        {
+            try
+            {
+                Path report = format.writeTo(outputDirectory.toPath(), index, allReports);
+                getLog().info("Written " + format + " report to " + report);
+            }
+            catch (IOException e)
+            {
+                throw new MojoExecutionException("Error writing " + format + " report", e);
+            }
+        }
+        reports.count("reports", reportFormats.size()).stop();
+
+        Stage snapshots = metrics.start("snapshots");
+        if(writeSnapshot)
+        {
+            writeSnapshot(new File(outputDirectory, SNAPSHOT_FILE), index, allReports);
+        }
+        if(writeBaseline)
+        {
+            writeSnapshot(baseline, index, allReports);
+        }
+        snapshots.count("classes", index.getClassGraph().getNumClasses()).stop();
 
-        StringBuilder builder = new StringBuilder();
-        for(Entry<Component, ComponentInstability> report  : allReports.entrySet())
+        writeMetrics(metrics);
+
+        for(ClassDefCreationException failure : parseFailures.values())
+        {
+            getLog().warn("Skipped " + failure.getMessage());
+        }
+        if(!parseFailures.isEmpty())
+        {
+            getLog().warn(parseFailures.size() + " files could not be parsed and were left out of the analysis");
+        }
+        if(failOnParseErrors && !parseFailures.isEmpty())
         {
-            Component comp = report.getKey();
-            ComponentInstability instabilityReport = report.getValue();
-            double instability = instabilityReport.getInstabilityValue();
-            double abstraction = comp.getAbstraction();
-            double distance = Math.abs(abstraction + instability -1);
-            builder.append(comp.getName() + "," + instability + "," + abstraction + "," + distance);
-            builder.append(System.lineSeparator());
-            checkStabilityDirection(report, allReports);
+            throw new MojoFailureException(parseFailures.size() + " files could not be parsed, the first is " +
+                                           parseFailures.keySet().iterator().next());
         }
+        if(failOnCycles && !cycles.isEmpty())
+        {
+            throw new MojoFailureException(cycles.size() + " dependency cycles between components, the first is " +
+                                           cycles.get(0));
+        }
+    }
 
+    private void writeSnapshot(File snapshotFile, ReactorIndex index, Map<Component, ComponentInstability> allReports)
+        throws MojoExecutionException
+    {
         try
         {
-            Files.write(Paths.get("mainsequence.csv"), builder.toString().getBytes());
+            ModelSnapshot.write(snapshotFile.toPath(), index, allReports);
+            getLog().info("Written snapshot to " + snapshotFile);
         }
         catch (IOException e)
         {
-            throw new MojoExecutionException("Error creating CSV file", e);
+            throw new MojoExecutionException("Error writing snapshot " + snapshotFile, e);
         }
     }
 
-    private void checkStabilityDirection(Entry<Component, ComponentInstability> instability, Map<Component, ComponentInstability> allReports)
+    /**
+     * @param symbols the table of this run, the baseline classes are recreated in it.
+     * @return the baseline or null to analyse every module, when there is no readable baseline.
+     */
+    private Baseline readBaseline(SymbolTable symbols)
     {
-        for(ComponentInstability outsideInstability : allReports.values())
+        if(!baseline.isFile())
         {
-            Component sourceComp = instability.getKey();
-            Component outsideComp = outsideInstability.getComp();
+            getLog().warn("No baseline at " + baseline + ", analysing every module");
+            return null;
+        }
+        try
+        {
+            return Baseline.read(baseline.toPath(), symbols);
+        }
+        catch (IOException e)
+        {
+            getLog().warn("Ignoring unreadable baseline, analysing every module: " + e.getMessage());
+            return null;
+        }
+    }
 
-            if(!sourceComp.dependsUpon(outsideComp))
-            {
-                getLog().debug("Bypassing stability check as " + sourceComp.getName() + " does not depend upon " + outsideComp.getName());
-                continue;
-            }
+    /**
+     * @return the names of the reactor modules with files changed since the changedSince revision, or null to analyse
+     *         every module when git cannot tell.
+     */
+    private Set<String> changedModules()
+    {
+        Map<String, Path> moduleBasedirs = new LinkedHashMap<>();
+        for(MavenProject moduleProject : reactorProjects)
+        {
+            moduleBasedirs.put(moduleProject.getArtifactId(), moduleProject.getBasedir().toPath());
+        }
+        try
+        {
+            Set<String> changed = GitChangedFiles.since(changedSince, project.getBasedir().toPath()).
+                                                  modulesTouched(moduleBasedirs);
+            getLog().info(changed.size() + " of " + moduleBasedirs.size() + " modules changed since " + changedSince +
+                          ": " + changed);
+            return changed;
+        }
+        catch (IOException e)
+        {
+            getLog().warn("Unable to list changes since " + changedSince + ", analysing every module: " + e.getMessage());
+            return null;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            getLog().warn("Interrupted listing changes since " + changedSince + ", analysing every module");
+            return null;
+        }
+    }
 
-            getLog().debug("Checking stability as " + sourceComp.getName() + " depends upon " + outsideComp.getName());
-            if(modules.contains(sourceComp.getName()))
+    private void logBaselineChanges(Baseline previousBaseline, Set<String> changedModules,
+                                    Map<Component, ComponentInstability> allReports)
+    {
+        Set<String> affected = previousBaseline.affectedBy(changedModules, allReports);
+        for(ComponentInstability instability : allReports.values())
+        {
+            String name = instability.getComp().getName();
+            if(affected.contains(name))
             {
-                getLog().info("DETAILS for " + sourceComp.getName());
-                Map<ClassDef, Set<ClassDef>> dependents = sourceComp.dependents(outsideComp);
-                getLog().info("There are " + dependents.size());
-                dependents.forEach((imported, importers) ->
-                    importers.forEach(importer -> getLog().info(importer.getFullQualName() + " imports " + imported.getFullQualName()))
-                );
+                getLog().info("Instability of " + name + " was " + previousBaseline.getInstability(name) + " and is " +
+                              instability.getInstabilityValue());
             }
+        }
+    }
 
-            // Unstable ---> stable is good
-            if(instability.getValue().compareTo(outsideInstability) > 0)
-            {
-                getLog().warn("More stable " + sourceComp.getName() +
-                              "(" + instability.getValue().getInstabilityValue() + ") " +
-                              "depends upon less stable component " +
-                              outsideComp.getName() +
-                              "(" + outsideInstability.getInstabilityValue() + ")");
+    private void writeMetrics(PipelineMetrics metrics)
+    {
+        metrics.summary().forEach(getLog()::info);
+        Path metricsFile = outputDirectory.toPath().resolve(METRICS_FILE);
+        try
+        {
+            metrics.writeJson(metricsFile);
+        }
+        catch (IOException e)
+        {
+            getLog().warn("Unable to write metrics to " + metricsFile + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isJar(File artifactFile)
+    {
+        return artifactFile != null && artifactFile.isFile() && artifactFile.getName().endsWith(".jar");
+    }
 
-                if(modules.stream().anyMatch(modIn -> modIn.contains(sourceComp.getName())))
+    /**
+     * @return the existing directories to search for the module's files, generated source roots are left out when
+     *         they are skipped.
+     */
+    private List<Path> sourceRootsOf(MavenProject moduleProject)
+    {
+        List<String> roots = new ArrayList<>();
+        if(parser.readsCompiledClasses())
+        {
+            roots.add(moduleProject.getBuild().getOutputDirectory());
+        }
+        else
+        {
+            if(moduleProject.getCompileSourceRoots() != null)
+            {
+                for(Object root : moduleProject.getCompileSourceRoots())
                 {
-                    ComponentInstability inst = instability.getValue();
-//                    getLog().warn("Fan In Explode");
-//                    for(ClassDef dep : inst.getIncomingDependencies())
-//                    {
-//                        getLog().info(dep.getFullQualName());
-//                    }
-                    getLog().warn("Fan Out Explode");
-                    for(ClassDef dep : inst.getOutClassDeps())
-                    {
-                        getLog().info(dep.getFullQualName());
-                    }
+                    roots.add(root.toString());
                 }
             }
-            else
+            if(roots.isEmpty())
             {
-                getLog().debug("Stability ok " + instability.getValue().getInstabilityValue() + " > " + outsideInstability.getInstabilityValue());
+                roots.add(moduleProject.getBuild().getSourceDirectory());
             }
         }
+
+        List<Path> existingRoots = new ArrayList<>();
+        for(String root : roots)
+        {
+            Path rootPath = Paths.get(root);
+            if(skipGeneratedSources && isGenerated(rootPath))
+            {
+                getLog().debug("Skipping generated source root " + rootPath);
+            }
+            else if(Files.isDirectory(rootPath))
+            {
+                existingRoots.add(rootPath);
+            }
+        }
+        return existingRoots;
     }
 
-    private List<Path> gatherSrcPaths(File path) throws MojoExecutionException
+    private static boolean isGenerated(Path root)
     {
-        getLog().debug("gathering src paths for " + path);
-        List<Path> classes = new ArrayList<>();
-        try (DirectoryStream<Path> srcStream = Files.newDirectoryStream(path.toPath()))
+        for(Path element : root)
         {
-            Iterator<Path> it = srcStream.iterator();
-            while (it.hasNext())
+            if(element.toString().equals(SourceDiscovery.GENERATED_SOURCES))
             {
-                Path srcFilePath = it.next();
-                if (srcFilePath.toFile().isDirectory())
-                {
-                    classes.addAll(gatherSrcPaths(srcFilePath.toFile()));
-                }
-                else if (FilenameUtils.getExtension(srcFilePath.toString()).equals("java") &&
-                         !srcFilePath.endsWith("package-info.java"))
-                {
-                    getLog().debug("Adding " + srcFilePath);
-                    classes.add(srcFilePath);
-                }
+                return true;
             }
-            getLog().debug("Added " + classes.size() + " classes after " + path);
-            return classes;
+        }
+        return false;
+    }
+
+    private List<List<Path>> discoverSources(List<List<Path>> moduleRoots) throws MojoExecutionException
+    {
+        SourceDiscovery discovery = new SourceDiscovery(parser.getFileExtension(), includes, excludes,
+                                                        skipGeneratedSources, parseThreads);
+        try
+        {
+            return discovery.discover(moduleRoots);
         }
         catch (IOException e)
         {
             throw new MojoExecutionException(e.getMessage(), e);
         }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while discovering sources", e);
+        }
     }
-}
\ No newline at end of file
+}
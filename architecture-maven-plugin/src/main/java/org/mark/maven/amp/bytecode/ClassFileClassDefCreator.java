@@ -0,0 +1,539 @@
+package org.mark.maven.amp.bytecode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.mark.maven.amp.ClassDefCreator;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.SymbolTable;
+
+/**
+ * {@link ClassDefCreator} that reads compiled classes rather than source files. Given a .class file it reads the
+ * whole file with one bulk channel read into a buffer each thread keeps, grown to the largest class file seen, and only
+ * memory maps the rare class file too large to buffer. Given a .jar it reads every class entry in the jar.
+ *
+ * The imports of a {@link ClassDef} are every type the class file refers to: class constants, the descriptors and
+ * generic signatures of its fields and methods, and the descriptors of the members it references. Unlike imports in
+ * source this includes fully qualified references, same package references and generated code. A class is named by
+ * its binary name (Outer$Inner) like the source parsers name nested types, so the package of a class is always what
+ * precedes the last dot, while the types it refers to are recorded by their canonical name (Outer.Inner) to match
+ * source imports. Synthetic classes and module descriptors are skipped.
+ *
+ * Each class file is read on its own, so nested, local and anonymous classes come back as classes of their own until
+ * {@link #nestUnderOwners(List)} puts the classes of a module together the way the source parsers report them. The
+ * abstract flag is taken from the ACC_ABSTRACT and ACC_INTERFACE access flags, so annotation types are abstract while
+ * enums and records never are.
+ */
+public final class ClassFileClassDefCreator implements ClassDefCreator
+{
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_ENUM = 0x4000;
+    private static final int ACC_MODULE = 0x8000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final SymbolTable symbols;
+    private final ThreadLocal<ByteBuffer> buffers =
+                    ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    /**
+     * @param symbolTable the table the names of the classes and the types they refer to are interned in.
+     */
+    public ClassFileClassDefCreator(SymbolTable symbolTable)
+    {
+        this.symbols = symbolTable;
+    }
+
+    @Override
+    public List<ClassDef> createClassDefFor(Path classFilePath) throws ClassDefCreationException
+    {
+        try
+        {
+            if(classFilePath.toString().endsWith(".jar"))
+            {
+                return createClassDefsForJar(classFilePath);
+            }
+            try (FileChannel channel = FileChannel.open(classFilePath, StandardOpenOption.READ))
+            {
+                long size = channel.size();
+                if(size > MAX_BUFFER_SIZE)
+                {
+                    return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                }
+                return read(readFully(channel, (int) size, classFilePath));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ClassDefCreationException("Exception reading class file " + classFilePath, e);
+        }
+    }
+
+    @Override
+    public void releaseThread()
+    {
+        buffers.remove();
+    }
+
+    /**
+     * @return the calling thread's buffer holding the whole class file, from position 0 to a limit of its size.
+     */
+    private ByteBuffer readFully(FileChannel channel, int size, Path classFilePath) throws IOException
+    {
+        ByteBuffer buffer = buffers.get();
+        if(size > buffer.capacity())
+        {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(size - 1) << 1);
+            buffers.set(buffer);
+        }
+        buffer.clear().limit(size);
+        while(buffer.hasRemaining())
+        {
+            if(channel.read(buffer) < 0)
+            {
+                throw new EOFException("Class file truncated while reading: " + classFilePath);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private List<ClassDef> createClassDefsForJar(Path jarPath) throws IOException
+    {
+        List<ClassDef> classDefs = new ArrayList<>();
+        try (ZipFile jar = new ZipFile(jarPath.toFile()))
+        {
+            Enumeration<? extends ZipEntry> entries = jar.entries();
+            while(entries.hasMoreElements())
+            {
+                ZipEntry entry = entries.nextElement();
+                if(!entry.isDirectory() && entry.getName().endsWith(".class"))
+                {
+                    try (InputStream in = jar.getInputStream(entry))
+                    {
+                        classDefs.addAll(read(ByteBuffer.wrap(IOUtils.toByteArray(in))));
+                    }
+                }
+            }
+        }
+        return nestUnderOwners(classDefs);
+    }
+
+    private List<ClassDef> read(ByteBuffer classFile) throws IOException
+    {
+        try
+        {
+            return parse(classFile);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e)
+        {
+            throw new IOException("Malformed class file", e);
+        }
+    }
+
+    private List<ClassDef> parse(ByteBuffer classFile) throws IOException
+    {
+        if(classFile.getInt() != MAGIC)
+        {
+            throw new IOException("Not a class file");
+        }
+        classFile.getShort(); // minor version
+        classFile.getShort(); // major version
+
+        int poolCount = classFile.getShort() & 0xFFFF;
+        int[] utf8Offsets = new int[poolCount];
+        int[] utf8Lengths = new int[poolCount];
+        int[] classNames = new int[poolCount];
+        List<Integer> descriptors = new ArrayList<>();
+        for(int i = 1; i < poolCount; i++)
+        {
+            int tag = classFile.get();
+            switch(tag)
+            {
+                case CONSTANT_UTF8:
+                    utf8Lengths[i] = classFile.getShort() & 0xFFFF;
+                    utf8Offsets[i] = classFile.position();
+                    skip(classFile, utf8Lengths[i]);
+                    break;
+                case CONSTANT_CLASS:
+                    classNames[i] = classFile.getShort() & 0xFFFF;
+                    break;
+                case CONSTANT_NAME_AND_TYPE:
+                    classFile.getShort();
+                    descriptors.add(classFile.getShort() & 0xFFFF);
+                    break;
+                case CONSTANT_METHOD_TYPE:
+                    descriptors.add(classFile.getShort() & 0xFFFF);
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(classFile, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(classFile, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(classFile, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(classFile, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        int accessFlags = classFile.getShort() & 0xFFFF;
+        String binaryName = utf8(classFile, utf8Offsets, utf8Lengths, classNames[classFile.getShort() & 0xFFFF]);
+        if((accessFlags & (ACC_SYNTHETIC | ACC_MODULE)) != 0)
+        {
+            return Collections.emptyList();
+        }
+
+        Set<String> referenced = new HashSet<>();
+        for(int i = 1; i < poolCount; i++)
+        {
+            if(classNames[i] != 0)
+            {
+                String name = utf8(classFile, utf8Offsets, utf8Lengths, classNames[i]);
+                if(name.charAt(0) == '[')
+                {
+                    collectTypes(name, referenced);
+                }
+                else
+                {
+                    referenced.add(name);
+                }
+            }
+        }
+        for(int descriptor : descriptors)
+        {
+            collectTypes(utf8(classFile, utf8Offsets, utf8Lengths, descriptor), referenced);
+        }
+
+        skip(classFile, 2); // super class, already a class constant
+        skip(classFile, 2 * (classFile.getShort() & 0xFFFF)); // interfaces, already class constants
+        int signatureName = indexOf("Signature", classFile, utf8Offsets, utf8Lengths);
+        for(int memberKind = 0; memberKind < 2; memberKind++)
+        {
+            int memberCount = classFile.getShort() & 0xFFFF;
+            for(int m = 0; m < memberCount; m++)
+            {
+                classFile.getShort(); // access flags
+                classFile.getShort(); // name
+                collectTypes(utf8(classFile, utf8Offsets, utf8Lengths, classFile.getShort() & 0xFFFF), referenced);
+                readAttributes(classFile, signatureName, utf8Offsets, utf8Lengths, referenced);
+            }
+        }
+        readAttributes(classFile, signatureName, utf8Offsets, utf8Lengths, referenced);
+
+        Set<String> imports = new HashSet<>();
+        referenced.forEach(name -> imports.add(canonicalName(name)));
+        String name = binaryName.replace('/', '.');
+        imports.remove(canonicalName(binaryName));
+
+        boolean isAbstract = (accessFlags & ACC_ENUM) == 0 && (accessFlags & (ACC_ABSTRACT | ACC_INTERFACE)) != 0;
+        return Collections.singletonList(new ClassDef(symbols, name, imports, isAbstract));
+    }
+
+    private static void readAttributes(ByteBuffer classFile, int signatureName, int[] utf8Offsets, int[] utf8Lengths,
+                                       Set<String> referenced)
+    {
+        int attrCount = classFile.getShort() & 0xFFFF;
+        for(int a = 0; a < attrCount; a++)
+        {
+            int attrName = classFile.getShort() & 0xFFFF;
+            int attrLength = classFile.getInt();
+            if(attrName == signatureName && signatureName != 0)
+            {
+                int position = classFile.position();
+                collectTypes(utf8(classFile, utf8Offsets, utf8Lengths, classFile.getShort() & 0xFFFF), referenced);
+                classFile.position(position);
+            }
+            skip(classFile, attrLength);
+        }
+    }
+
+    /**
+     * Collects the class types named in a field or method descriptor or a generic signature.
+     */
+    static void collectTypes(String signature, Set<String> referenced)
+    {
+        int i = 0;
+        if(signature.charAt(0) == '<')
+        {
+            i = formalTypeParameters(signature, 1, referenced);
+        }
+        while(i < signature.length())
+        {
+            char c = signature.charAt(i);
+            if(c == '(' || c == ')' || c == '^')
+            {
+                i++;
+            }
+            else
+            {
+                i = type(signature, i, referenced);
+            }
+        }
+    }
+
+    private static int formalTypeParameters(String signature, int start, Set<String> referenced)
+    {
+        int i = start;
+        while(signature.charAt(i) != '>')
+        {
+            i = signature.indexOf(':', i);
+            while(signature.charAt(i) == ':')
+            {
+                i++;
+                char c = signature.charAt(i);
+                if(c == 'L' || c == 'T' || c == '[')
+                {
+                    i = type(signature, i, referenced);
+                }
+            }
+        }
+        return i + 1;
+    }
+
+    private static int type(String signature, int start, Set<String> referenced)
+    {
+        char c = signature.charAt(start);
+        if(c == '[')
+        {
+            return type(signature, start + 1, referenced);
+        }
+        if(c == 'T')
+        {
+            return signature.indexOf(';', start) + 1;
+        }
+        if(c != 'L')
+        {
+            return start + 1;
+        }
+
+        int i = start + 1;
+        int nameEnd = endOfName(signature, i);
+        referenced.add(signature.substring(i, nameEnd));
+        i = nameEnd;
+        while(signature.charAt(i) != ';')
+        {
+            if(signature.charAt(i) == '<')
+            {
+                i++;
+                while(signature.charAt(i) != '>')
+                {
+                    char arg = signature.charAt(i);
+                    if(arg == '*')
+                    {
+                        i++;
+                    }
+                    else
+                    {
+                        i = type(signature, arg == '+' || arg == '-' ? i + 1 : i, referenced);
+                    }
+                }
+                i++;
+            }
+            else
+            {
+                // .Inner of a parameterised outer type, the outer type has been recorded already
+                i = endOfName(signature, i + 1);
+            }
+        }
+        return i + 1;
+    }
+
+    private static int endOfName(String signature, int start)
+    {
+        int i = start;
+        char c = signature.charAt(i);
+        while(c != ';' && c != '<' && c != '.')
+        {
+            c = signature.charAt(++i);
+        }
+        return i;
+    }
+
+    private static int indexOf(String value, ByteBuffer classFile, int[] utf8Offsets, int[] utf8Lengths)
+    {
+        for(int i = 1; i < utf8Offsets.length; i++)
+        {
+            if(utf8Lengths[i] == value.length() && utf8(classFile, utf8Offsets, utf8Lengths, i).equals(value))
+            {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String utf8(ByteBuffer classFile, int[] utf8Offsets, int[] utf8Lengths, int index)
+    {
+        byte[] bytes = new byte[utf8Lengths[index]];
+        for(int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = classFile.get(utf8Offsets[index] + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skip(ByteBuffer classFile, int numBytes)
+    {
+        classFile.position(classFile.position() + numBytes);
+    }
+
+    /**
+     * Groups the classes read from the class files of one module under their top level class, the one whose name
+     * precedes the leftmost $ that names a class of the module. The top level class takes on the references of every
+     * class nested in it, since nested types share their owner's dependencies, and named nested and local classes
+     * become its {@link ClassDef#getNestedTypes() nested types}. Anonymous classes only contribute their references.
+     * A class whose enclosing classes are not among the given ones stays top level.
+     *
+     * @param classDefs the classes read from every class file of a module, in any order.
+     * @return the top level classes, in the order the first class file of each was given.
+     */
+    public static List<ClassDef> nestUnderOwners(List<ClassDef> classDefs)
+    {
+        Map<String, ClassDef> byName = new HashMap<>();
+        classDefs.forEach(classDef -> byName.putIfAbsent(classDef.getFullQualName(), classDef));
+        // The leftmost enclosing class found is top level itself, any enclosing class of it would precede it
+        Map<ClassDef, List<ClassDef>> nestedByOwner = new LinkedHashMap<>();
+        for(ClassDef classDef : classDefs)
+        {
+            ClassDef owner = ownerOf(classDef.getFullQualName(), byName);
+            if(owner == null)
+            {
+                nestedByOwner.computeIfAbsent(classDef, topLevel -> new ArrayList<>());
+            }
+            else
+            {
+                nestedByOwner.computeIfAbsent(owner, topLevel -> new ArrayList<>()).add(classDef);
+            }
+        }
+
+        List<ClassDef> topLevelClasses = new ArrayList<>(nestedByOwner.size());
+        nestedByOwner.forEach((topLevel, nestedClasses) -> topLevelClasses.add(nest(topLevel, nestedClasses)));
+        return topLevelClasses;
+    }
+
+    private static ClassDef nest(ClassDef topLevel, List<ClassDef> nestedClasses)
+    {
+        if(nestedClasses.isEmpty())
+        {
+            return topLevel;
+        }
+        String name = topLevel.getFullQualName();
+        Set<String> references = new HashSet<>(topLevel.getImports());
+        List<ClassDef> namedTypes = new ArrayList<>(topLevel.getNestedTypes());
+        for(ClassDef nestedClass : nestedClasses)
+        {
+            references.addAll(nestedClass.getImports());
+            if(!isAnonymous(nestedClass.getFullQualName()))
+            {
+                namedTypes.add(nestedClass);
+            }
+        }
+        // References between the top level class and the classes nested in it stay within its source file
+        String canonicalName = name.replace('$', '.');
+        references.remove(canonicalName);
+        references.removeIf(reference -> reference.startsWith(canonicalName + "."));
+        SymbolTable symbols = topLevel.getSymbols();
+        ImmutableIntSet importIds = symbols.internAll(references);
+        List<ClassDef> nestedTypes = new ArrayList<>(namedTypes.size());
+        for(ClassDef namedType : namedTypes)
+        {
+            nestedTypes.add(new ClassDef(symbols, namedType.getFullQualName(), importIds, namedType.isAbstract()));
+        }
+        return new ClassDef(symbols, name, importIds, topLevel.isAbstract(), nestedTypes);
+    }
+
+    private static ClassDef ownerOf(String name, Map<String, ClassDef> byName)
+    {
+        for(int nested = name.indexOf('$'); nested > 0; nested = name.indexOf('$', nested + 1))
+        {
+            ClassDef owner = byName.get(name.substring(0, nested));
+            if(owner != null)
+            {
+                return owner;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the binary name ends in the digits only name javac gives an anonymous class, Outer$1.
+     */
+    private static boolean isAnonymous(String binaryName)
+    {
+        int nested = binaryName.lastIndexOf('$');
+        if(nested < 0 || nested + 1 == binaryName.length())
+        {
+            return false;
+        }
+        for(int i = nested + 1; i < binaryName.length(); i++)
+        {
+            if(!Character.isDigit(binaryName.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String canonicalName(String binaryName)
+    {
+        return binaryName.replace('/', '.').replace('$', '.');
+    }
+}
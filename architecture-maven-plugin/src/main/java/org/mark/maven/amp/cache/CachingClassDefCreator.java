@@ -0,0 +1,260 @@
+package org.mark.maven.amp.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mark.maven.amp.ClassDefCreator;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.SymbolTable;
+
+/**
+ * {@link ClassDefCreator} decorator that remembers the {@link ClassDef} instances created for each source file between
+ * runs. A file is only passed on to the delegate when its size or last modified time differ from the cached entry.
+ *
+ * The cache file starts with a string table so every class and import name is written once, followed by one entry per
+ * source file that refers to names by their index in the table. Only files seen during the current run are saved, so
+ * entries for deleted files drop out. A cache written by a delegate with a different
+ * {@link ClassDefCreator#getIdentity() identity} or format version is ignored.
+ */
+public final class CachingClassDefCreator implements ClassDefCreator
+{
+    private static final int MAGIC = 0x414d5043; // AMPC
+    private static final int VERSION = 2;
+
+    private static final class CacheEntry
+    {
+        private final long size;
+        private final long lastModified;
+        private final List<ClassDef> classDefs;
+
+        private CacheEntry(long fileSize, long fileLastModified, List<ClassDef> fileClassDefs)
+        {
+            this.size = fileSize;
+            this.lastModified = fileLastModified;
+            this.classDefs = fileClassDefs;
+        }
+
+        private boolean matches(BasicFileAttributes attrs)
+        {
+            return size == attrs.size() && lastModified == attrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    private final SymbolTable symbols;
+    private final ClassDefCreator delegate;
+    private final Path cacheFile;
+    private final Map<String, CacheEntry> previous = new HashMap<>();
+    private final Map<String, CacheEntry> current = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param symbolTable the table the delegate interns in, cached classes are recreated in it.
+     * @param creator the {@link ClassDefCreator} used for files that are not in the cache or have changed.
+     * @param cachePath the file the cache is loaded from and saved to.
+     */
+    public CachingClassDefCreator(SymbolTable symbolTable, ClassDefCreator creator, Path cachePath)
+    {
+        this.symbols = symbolTable;
+        this.delegate = creator;
+        this.cacheFile = cachePath;
+    }
+
+    @Override
+    public List<ClassDef> createClassDefFor(Path srcFilePath) throws ClassDefCreationException
+    {
+        String key = srcFilePath.toAbsolutePath().toString();
+        BasicFileAttributes attrs;
+        try
+        {
+            attrs = Files.readAttributes(srcFilePath, BasicFileAttributes.class);
+        }
+        catch (IOException e)
+        {
+            throw new ClassDefCreationException("Exception reading attributes of src file " + srcFilePath, e);
+        }
+
+        CacheEntry cached = previous.get(key);
+        if(cached != null && cached.matches(attrs))
+        {
+            hits.incrementAndGet();
+            current.put(key, cached);
+            return cached.classDefs;
+        }
+
+        misses.incrementAndGet();
+        List<ClassDef> classDefs = delegate.createClassDefFor(srcFilePath);
+        current.put(key, new CacheEntry(attrs.size(), attrs.lastModifiedTime().toMillis(), classDefs));
+        return classDefs;
+    }
+
+    /**
+     * @return the number of files served from the cache.
+     */
+    public int getHits()
+    {
+        return hits.get();
+    }
+
+    @Override
+    public String getIdentity()
+    {
+        return delegate.getIdentity();
+    }
+
+    @Override
+    public void releaseThread()
+    {
+        delegate.releaseThread();
+    }
+
+    /**
+     * @return the number of files passed on to the delegate.
+     */
+    public int getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Loads the cache file if it exists. Call before the first {@link #createClassDefFor(Path)}.
+     *
+     * @throws IOException if the cache file exists but cannot be read, the cache is left empty.
+     */
+    public void load() throws IOException
+    {
+        previous.clear();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile))))
+        {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(delegate.getIdentity()))
+            {
+                return;
+            }
+
+            String[] names = new String[in.readInt()];
+            for(int i = 0; i < names.length; i++)
+            {
+                names[i] = in.readUTF();
+            }
+
+            int numEntries = in.readInt();
+            for(int i = 0; i < numEntries; i++)
+            {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                int numClassDefs = in.readInt();
+                List<ClassDef> classDefs = new ArrayList<>(numClassDefs);
+                for(int c = 0; c < numClassDefs; c++)
+                {
+                    String name = names[in.readInt()];
+                    boolean isAbstract = in.readBoolean();
+                    int numImports = in.readInt();
+                    Set<String> imports = new HashSet<>();
+                    for(int imp = 0; imp < numImports; imp++)
+                    {
+                        imports.add(names[in.readInt()]);
+                    }
+                    ImmutableIntSet importIds = symbols.internAll(imports);
+                    List<ClassDef> nestedTypes = new ArrayList<>();
+                    int numNested = in.readInt();
+                    for(int n = 0; n < numNested; n++)
+                    {
+                        nestedTypes.add(new ClassDef(symbols, names[in.readInt()], importIds, in.readBoolean()));
+                    }
+                    classDefs.add(new ClassDef(symbols, name, importIds, isAbstract, nestedTypes));
+                }
+                previous.put(key, new CacheEntry(size, lastModified, classDefs));
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // First run, nothing cached yet.
+        }
+        catch (IOException | RuntimeException e)
+        {
+            previous.clear();
+            throw new IOException("Unable to read class def cache " + cacheFile, e);
+        }
+    }
+
+    /**
+     * Saves the entries of every file seen since the last {@link #load()}, replacing the cache file.
+     *
+     * @throws IOException if the cache file cannot be written.
+     */
+    public void save() throws IOException
+    {
+        Map<String, Integer> nameIds = new LinkedHashMap<>();
+        for(CacheEntry entry : current.values())
+        {
+            for(ClassDef classDef : entry.classDefs)
+            {
+                nameIds.putIfAbsent(classDef.getFullQualName(), nameIds.size());
+                classDef.getImports().forEach(imported -> nameIds.putIfAbsent(imported, nameIds.size()));
+                classDef.getNestedTypes().forEach(nestedType -> nameIds.putIfAbsent(nestedType.getFullQualName(),
+                                                                                     nameIds.size()));
+            }
+        }
+
+        Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+        Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(delegate.getIdentity());
+
+            out.writeInt(nameIds.size());
+            for(String name : nameIds.keySet())
+            {
+                out.writeUTF(name);
+            }
+
+            out.writeInt(current.size());
+            for(Map.Entry<String, CacheEntry> fileEntry : current.entrySet())
+            {
+                CacheEntry entry = fileEntry.getValue();
+                out.writeUTF(fileEntry.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.writeInt(entry.classDefs.size());
+                for(ClassDef classDef : entry.classDefs)
+                {
+                    out.writeInt(nameIds.get(classDef.getFullQualName()));
+                    out.writeBoolean(classDef.isAbstract());
+                    out.writeInt(classDef.getImports().size());
+                    for(String imported : classDef.getImports())
+                    {
+                        out.writeInt(nameIds.get(imported));
+                    }
+                    out.writeInt(classDef.getNestedTypes().size());
+                    for(ClassDef nestedType : classDef.getNestedTypes())
+                    {
+                        out.writeInt(nameIds.get(nestedType.getFullQualName()));
+                        out.writeBoolean(nestedType.isAbstract());
+                    }
+                }
+            }
+        }
+        Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
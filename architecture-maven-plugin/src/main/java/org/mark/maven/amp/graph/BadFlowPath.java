@@ -0,0 +1,56 @@
+package org.mark.maven.amp.graph;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.mark.maven.amp.model.Component;
+
+/**
+ * A dependency path through one dependency from a more stable component to a less stable one.
+ */
+public final class BadFlowPath
+{
+    private final List<Component> path;
+    private final int sourceStep;
+
+    BadFlowPath(List<Component> components, int badSourceStep)
+    {
+        this.path = components;
+        this.sourceStep = badSourceStep;
+    }
+
+    /**
+     * @return the more stable component of the offending dependency.
+     */
+    public Component getSource()
+    {
+        return path.get(sourceStep);
+    }
+
+    /**
+     * @return the less stable component of the offending dependency.
+     */
+    public Component getTarget()
+    {
+        return path.get(sourceStep + 1);
+    }
+
+    /**
+     * @return the components along the path, each depending upon the next.
+     */
+    public List<Component> getPath()
+    {
+        return Collections.unmodifiableList(path);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder flow = new StringBuilder(path.get(0).getName());
+        for(int step = 1; step < path.size(); step++)
+        {
+            flow.append(step == sourceStep + 1 ? " -!-> " : " -> ").append(path.get(step).getName());
+        }
+        return flow.toString();
+    }
+}
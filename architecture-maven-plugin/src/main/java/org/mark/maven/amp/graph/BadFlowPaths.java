@@ -0,0 +1,156 @@
+package org.mark.maven.amp.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * Finds, for every dependency of a more stable component upon a less stable one, the shortest dependency path through
+ * it from a component nothing depends upon to a component that depends upon nothing.
+ *
+ * Rather than enumerating paths, one breadth first search from every top component and one backwards from every
+ * bottom component record the next step towards the nearest of each, so all paths are found in time linear in the
+ * size of the component graph. Each path is cut to at most maxDepth dependencies either side of the offending one.
+ * Components in cycles no top or bottom component can be reached from start or end their paths.
+ */
+public final class BadFlowPaths
+{
+    private final ReactorIndex index;
+    private final Map<Component, ComponentInstability> instabilities;
+    private final int maxDepth;
+
+    /**
+     * @param reactorIndex the index the instabilities were calculated with.
+     * @param componentInstabilities the instability of every component in the index.
+     * @param maxPathDepth the most dependencies to follow either side of an offending dependency, 0 for the
+     *        offending dependency alone.
+     */
+    public BadFlowPaths(ReactorIndex reactorIndex, Map<Component, ComponentInstability> componentInstabilities,
+                        int maxPathDepth)
+    {
+        if(maxPathDepth < 0)
+        {
+            throw new IllegalArgumentException("maxPathDepth must not be negative but was " + maxPathDepth);
+        }
+        this.index = reactorIndex;
+        this.instabilities = componentInstabilities;
+        this.maxDepth = maxPathDepth;
+    }
+
+    /**
+     * @return one path per offending dependency, ordered by the more stable component and then the less stable one.
+     */
+    public List<BadFlowPath> find()
+    {
+        List<Component> components = index.getComponents();
+        int numComps = components.size();
+        int[][] dependencies = new int[numComps][];
+        int[] numDependents = new int[numComps];
+        double[] instability = new double[numComps];
+        for(int comp = 0; comp < numComps; comp++)
+        {
+            dependencies[comp] = index.dependenciesOf(comp);
+            for(int dependency : dependencies[comp])
+            {
+                numDependents[dependency]++;
+            }
+            instability[comp] = instabilities.get(components.get(comp)).getInstabilityValue();
+        }
+        int[][] dependents = new int[numComps][];
+        for(int comp = 0; comp < numComps; comp++)
+        {
+            dependents[comp] = new int[numDependents[comp]];
+            numDependents[comp] = 0;
+        }
+        for(int comp = 0; comp < numComps; comp++)
+        {
+            for(int dependency : dependencies[comp])
+            {
+                dependents[dependency][numDependents[dependency]++] = comp;
+            }
+        }
+
+        int[] towardsTop = nearest(dependents, dependencies);
+        int[] towardsBottom = nearest(dependencies, dependents);
+
+        List<BadFlowPath> paths = new ArrayList<>();
+        for(int source = 0; source < numComps; source++)
+        {
+            for(int target : dependencies[source])
+            {
+                if(instability[source] < instability[target])
+                {
+                    paths.add(path(source, target, towardsTop, towardsBottom, components));
+                }
+            }
+        }
+        return paths;
+    }
+
+    private BadFlowPath path(int source, int target, int[] towardsTop, int[] towardsBottom, List<Component> components)
+    {
+        List<Component> above = new ArrayList<>();
+        for(int comp = towardsTop[source]; comp >= 0 && above.size() < maxDepth; comp = towardsTop[comp])
+        {
+            above.add(components.get(comp));
+        }
+        List<Component> path = new ArrayList<>(above.size() + 2 + maxDepth);
+        for(int step = above.size() - 1; step >= 0; step--)
+        {
+            path.add(above.get(step));
+        }
+        path.add(components.get(source));
+        path.add(components.get(target));
+        int below = 0;
+        for(int comp = towardsBottom[target]; comp >= 0 && below < maxDepth; comp = towardsBottom[comp], below++)
+        {
+            path.add(components.get(comp));
+        }
+        return new BadFlowPath(path, above.size());
+    }
+
+    /**
+     * Breadth first search from every component without edges in the given direction, following edges the other way.
+     *
+     * @param edges the edges whose absence marks the start of the search.
+     * @param reverseEdges the edges followed by the search.
+     * @return for each component the next component along one of its edges towards the nearest start, -1 for the
+     *         start components and those no start can be reached from.
+     */
+    private static int[] nearest(int[][] edges, int[][] reverseEdges)
+    {
+        int numComps = edges.length;
+        int[] next = new int[numComps];
+        boolean[] reached = new boolean[numComps];
+        int[] queue = new int[numComps];
+        int tail = 0;
+        Arrays.fill(next, -1);
+        for(int comp = 0; comp < numComps; comp++)
+        {
+            if(edges[comp].length == 0)
+            {
+                reached[comp] = true;
+                queue[tail++] = comp;
+            }
+        }
+        for(int head = 0; head < tail; head++)
+        {
+            int comp = queue[head];
+            for(int other : reverseEdges[comp])
+            {
+                if(!reached[other])
+                {
+                    reached[other] = true;
+                    next[other] = comp;
+                    queue[tail++] = other;
+                }
+            }
+        }
+        return next;
+    }
+}
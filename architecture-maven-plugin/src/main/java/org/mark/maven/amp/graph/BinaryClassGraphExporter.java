@@ -0,0 +1,91 @@
+package org.mark.maven.amp.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.mark.maven.amp.model.ClassGraph;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * The class graph as a big endian binary edge list:
+ * <ol>
+ * <li>magic, version, number of components, classes and edges as ints</li>
+ * <li>every component name as an int byte length followed by its UTF-8 bytes</li>
+ * <li>every class as its component index, then its name like a component name</li>
+ * <li>every edge as the int indices of the importing and the imported class</li>
+ * </ol>
+ * Classes of a component are consecutive and edges are ordered by importing class.
+ */
+public final class BinaryClassGraphExporter implements ClassGraphExporter
+{
+    public static final int MAGIC = 0x414d5045; // AMPE
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    @Override
+    public void export(ReactorIndex index, WritableByteChannel out) throws IOException
+    {
+        ClassGraph graph = index.getClassGraph();
+        List<Component> components = index.getComponents();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(components.size()).putInt(graph.getNumClasses()).putInt(graph.getNumEdges());
+        for(Component comp : components)
+        {
+            putName(comp.getName(), buffer, out);
+        }
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            ensureSpace(4, buffer, out);
+            buffer.putInt(graph.componentOf(node));
+            putName(graph.classAt(node).getFullQualName(), buffer, out);
+        }
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            for(int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++)
+            {
+                ensureSpace(8, buffer, out);
+                buffer.putInt(node).putInt(graph.edgeTarget(edge));
+            }
+        }
+        drain(buffer, out);
+    }
+
+    private static void putName(String name, ByteBuffer buffer, WritableByteChannel out) throws IOException
+    {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        ensureSpace(4, buffer, out);
+        buffer.putInt(utf8.length);
+        int written = 0;
+        while(written < utf8.length)
+        {
+            ensureSpace(1, buffer, out);
+            int chunk = Math.min(buffer.remaining(), utf8.length - written);
+            buffer.put(utf8, written, chunk);
+            written += chunk;
+        }
+    }
+
+    private static void ensureSpace(int bytes, ByteBuffer buffer, WritableByteChannel out) throws IOException
+    {
+        if(buffer.remaining() < bytes)
+        {
+            drain(buffer, out);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining())
+        {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package org.mark.maven.amp.graph;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import org.mark.maven.amp.model.ClassGraph;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * Writes the {@link ClassGraph} of a reactor in one file format. Classes and edges are streamed from the graph's
+ * arrays through a fixed size buffer, no object per class or edge is created.
+ */
+public interface ClassGraphExporter
+{
+    /**
+     * @param index the index of the analysed reactor.
+     * @param out where to write the graph, the caller closes it.
+     * @throws IOException if writing fails.
+     */
+    void export(ReactorIndex index, WritableByteChannel out) throws IOException;
+}
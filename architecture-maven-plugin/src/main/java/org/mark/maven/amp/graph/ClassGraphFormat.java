@@ -0,0 +1,52 @@
+package org.mark.maven.amp.graph;
+
+/**
+ * The {@link ClassGraphExporter} implementations selectable through the stability goal's classGraphFormats parameter
+ * and the file each one writes.
+ */
+public enum ClassGraphFormat
+{
+    /** GraphML with the class and component name on every node, see {@link GraphMlClassGraphExporter}. */
+    GRAPHML("class-graph.graphml")
+    {
+        @Override
+        public ClassGraphExporter createExporter()
+        {
+            return new GraphMlClassGraphExporter();
+        }
+    },
+
+    /** One line per edge, see {@link CsvClassGraphExporter}. */
+    CSV("class-graph.csv")
+    {
+        @Override
+        public ClassGraphExporter createExporter()
+        {
+            return new CsvClassGraphExporter();
+        }
+    },
+
+    /** Names followed by the edges as pairs of ints, see {@link BinaryClassGraphExporter}. */
+    BINARY("class-graph.bin")
+    {
+        @Override
+        public ClassGraphExporter createExporter()
+        {
+            return new BinaryClassGraphExporter();
+        }
+    };
+
+    private final String fileName;
+
+    private ClassGraphFormat(String graphFileName)
+    {
+        this.fileName = graphFileName;
+    }
+
+    public abstract ClassGraphExporter createExporter();
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+}
@@ -0,0 +1,187 @@
+package org.mark.maven.amp.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * Finds the dependency cycles between the components of a reactor as the strongly connected components of the
+ * component graph, using Tarjan's algorithm without recursion so deep reactors cannot overflow the stack. Every
+ * component and dependency is visited once to find the cycles and once more to find the shortest example path of
+ * each cycle, so the whole pass is linear in the size of the component graph.
+ */
+public final class ComponentCycles
+{
+    private final ReactorIndex index;
+    private final int[][] dependencies;
+
+    /**
+     * @param reactorIndex the index of the reactor to check.
+     */
+    public ComponentCycles(ReactorIndex reactorIndex)
+    {
+        this.index = reactorIndex;
+        this.dependencies = new int[reactorIndex.getComponents().size()][];
+        for(int comp = 0; comp < dependencies.length; comp++)
+        {
+            dependencies[comp] = reactorIndex.dependenciesOf(comp);
+        }
+    }
+
+    /**
+     * @return every cycle between two or more components, ordered by their first component.
+     */
+    public List<DependencyCycle> find()
+    {
+        int numComps = dependencies.length;
+        int[] order = new int[numComps];
+        int[] lowLink = new int[numComps];
+        boolean[] onStack = new boolean[numComps];
+        int[] stack = new int[numComps];
+        int stackSize = 0;
+        int[] callStack = new int[numComps];
+        int[] nextDependency = new int[numComps];
+        int[] cycleOf = new int[numComps];
+        Arrays.fill(order, -1);
+        Arrays.fill(cycleOf, -1);
+        int visited = 0;
+        List<int[]> cycles = new ArrayList<>();
+
+        for(int root = 0; root < numComps; root++)
+        {
+            if(order[root] >= 0)
+            {
+                continue;
+            }
+            int depth = 0;
+            callStack[0] = root;
+            nextDependency[0] = 0;
+            order[root] = lowLink[root] = visited++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while(depth >= 0)
+            {
+                int comp = callStack[depth];
+                if(nextDependency[depth] < dependencies[comp].length)
+                {
+                    int dependency = dependencies[comp][nextDependency[depth]++];
+                    if(order[dependency] < 0)
+                    {
+                        depth++;
+                        callStack[depth] = dependency;
+                        nextDependency[depth] = 0;
+                        order[dependency] = lowLink[dependency] = visited++;
+                        stack[stackSize++] = dependency;
+                        onStack[dependency] = true;
+                    }
+                    else if(onStack[dependency])
+                    {
+                        lowLink[comp] = Math.min(lowLink[comp], order[dependency]);
+                    }
+                    continue;
+                }
+
+                if(lowLink[comp] == order[comp])
+                {
+                    int start = stackSize;
+                    do
+                    {
+                        onStack[stack[--start]] = false;
+                    }
+                    while(stack[start] != comp);
+                    if(stackSize - start > 1)
+                    {
+                        int[] members = Arrays.copyOfRange(stack, start, stackSize);
+                        Arrays.sort(members);
+                        for(int member : members)
+                        {
+                            cycleOf[member] = cycles.size();
+                        }
+                        cycles.add(members);
+                    }
+                    stackSize = start;
+                }
+                depth--;
+                if(depth >= 0)
+                {
+                    int parent = callStack[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[comp]);
+                }
+            }
+        }
+
+        cycles.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<DependencyCycle> dependencyCycles = new ArrayList<>(cycles.size());
+        int[] previous = new int[numComps];
+        int[] queue = new int[numComps];
+        Arrays.fill(previous, -1);
+        for(int[] members : cycles)
+        {
+            dependencyCycles.add(new DependencyCycle(toComponents(members),
+                                                     toComponents(shortestCycle(members, cycleOf, previous, queue))));
+        }
+        return dependencyCycles;
+    }
+
+    /**
+     * Breadth first search from the first component of a cycle through the other components of the cycle, until a
+     * dependency leads back to it.
+     */
+    private int[] shortestCycle(int[] members, int[] cycleOf, int[] previous, int[] queue)
+    {
+        int start = members[0];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        int last = -1;
+        while(last < 0)
+        {
+            int comp = queue[head++];
+            for(int dependency : dependencies[comp])
+            {
+                if(dependency == start)
+                {
+                    last = comp;
+                    break;
+                }
+                if(cycleOf[dependency] == cycleOf[start] && previous[dependency] < 0)
+                {
+                    previous[dependency] = comp;
+                    queue[tail++] = dependency;
+                }
+            }
+        }
+
+        int length = 2;
+        for(int comp = last; comp != start; comp = previous[comp])
+        {
+            length++;
+        }
+        int[] path = new int[length];
+        path[0] = start;
+        path[length - 1] = start;
+        int step = length - 2;
+        for(int comp = last; comp != start; comp = previous[comp])
+        {
+            path[step--] = comp;
+        }
+        for(int member : members)
+        {
+            previous[member] = -1;
+        }
+        return path;
+    }
+
+    private List<Component> toComponents(int[] compIndices)
+    {
+        List<Component> comps = new ArrayList<>(compIndices.length);
+        for(int compIndex : compIndices)
+        {
+            comps.add(index.getComponents().get(compIndex));
+        }
+        return comps;
+    }
+}
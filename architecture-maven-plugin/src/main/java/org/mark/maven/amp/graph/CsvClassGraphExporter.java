@@ -0,0 +1,26 @@
+package org.mark.maven.amp.graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.report.ClassEdgeCsvWriter;
+
+/**
+ * The class graph as the edge list of the CLASS_EDGES report: importing class, importing component, imported class and
+ * imported component, after a header line.
+ */
+public final class CsvClassGraphExporter implements ClassGraphExporter
+{
+    @Override
+    public void export(ReactorIndex index, WritableByteChannel out) throws IOException
+    {
+        Writer writer = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), -1), 1 << 16);
+        new ClassEdgeCsvWriter().write(index, null, writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,46 @@
+package org.mark.maven.amp.graph;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.mark.maven.amp.model.Component;
+
+/**
+ * Components that all depend upon each other, directly or through each other, along with the shortest cycle through
+ * one of them as an example.
+ */
+public final class DependencyCycle
+{
+    private final List<Component> components;
+    private final List<Component> examplePath;
+
+    DependencyCycle(List<Component> cycleComponents, List<Component> shortestCycle)
+    {
+        this.components = cycleComponents;
+        this.examplePath = shortestCycle;
+    }
+
+    /**
+     * @return every component in the cycle, in reactor order.
+     */
+    public List<Component> getComponents()
+    {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * @return the shortest dependency path from the first component of the cycle back to itself, starting and ending
+     *         with that component.
+     */
+    public List<Component> getExamplePath()
+    {
+        return Collections.unmodifiableList(examplePath);
+    }
+
+    @Override
+    public String toString()
+    {
+        return examplePath.stream().map(Component::getName).collect(Collectors.joining(" -> "));
+    }
+}
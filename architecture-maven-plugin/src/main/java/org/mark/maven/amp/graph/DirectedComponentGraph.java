@@ -1,9 +1,20 @@
 package org.mark.maven.amp.graph;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 
 public interface DirectedComponentGraph
 {
     void exportDot() throws IOException;
+
+    /**
+     * Streams the class level graph behind the components into the format's file, replacing any previous one.
+     *
+     * @param format the format to write.
+     * @param outputDir the directory to write to, created if missing.
+     * @return the path of the written file.
+     * @throws IOException if the graph cannot be written.
+     */
+    Path exportClassGraph(ClassGraphFormat format, Path outputDir) throws IOException;
 }
@@ -0,0 +1,82 @@
+package org.mark.maven.amp.graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.mark.maven.amp.model.ClassGraph;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * The class graph as a directed GraphML graph. Node n is the class at node n of the {@link ClassGraph}, with its name
+ * and component as data, and every import between classes of the reactor is an edge.
+ */
+public final class GraphMlClassGraphExporter implements ClassGraphExporter
+{
+    @Override
+    public void export(ReactorIndex index, WritableByteChannel out) throws IOException
+    {
+        ClassGraph graph = index.getClassGraph();
+        List<Component> components = index.getComponents();
+        Writer writer = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), -1), 1 << 16);
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        writer.write("  <key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>\n");
+        writer.write("  <key id=\"component\" for=\"node\" attr.name=\"component\" attr.type=\"string\"/>\n");
+        writer.write("  <graph id=\"classes\" edgedefault=\"directed\">\n");
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            writer.write("    <node id=\"n");
+            writer.write(Integer.toString(node));
+            writer.write("\"><data key=\"name\">");
+            writeEscaped(graph.classAt(node).getFullQualName(), writer);
+            writer.write("</data><data key=\"component\">");
+            writeEscaped(components.get(graph.componentOf(node)).getName(), writer);
+            writer.write("</data></node>\n");
+        }
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            for(int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++)
+            {
+                writer.write("    <edge source=\"n");
+                writer.write(Integer.toString(node));
+                writer.write("\" target=\"n");
+                writer.write(Integer.toString(graph.edgeTarget(edge)));
+                writer.write("\"/>\n");
+            }
+        }
+        writer.write("  </graph>\n");
+        writer.write("</graphml>\n");
+        writer.flush();
+    }
+
+    private static void writeEscaped(String text, Writer writer) throws IOException
+    {
+        for(int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            switch(c)
+            {
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+}
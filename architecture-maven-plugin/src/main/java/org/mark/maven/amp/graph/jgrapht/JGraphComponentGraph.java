@@ -2,22 +2,17 @@ package org.mark.maven.amp.graph.jgrapht;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.jgrapht.Graph;
-import org.jgrapht.GraphPath;
-import org.jgrapht.Graphs;
-import org.jgrapht.alg.shortestpath.AllDirectedPaths;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.io.Attribute;
@@ -26,9 +21,11 @@ import org.jgrapht.io.ComponentNameProvider;
 import org.jgrapht.io.DOTExporter;
 import org.jgrapht.io.DefaultAttribute;
 import org.jgrapht.io.IntegerComponentNameProvider;
+import org.mark.maven.amp.graph.ClassGraphFormat;
 import org.mark.maven.amp.graph.DirectedComponentGraph;
 import org.mark.maven.amp.model.Component;
 import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
 
 import static org.jgrapht.io.AttributeType.STRING;
 
@@ -38,6 +35,7 @@ public final class JGraphComponentGraph implements DirectedComponentGraph
     private final ComponentNameProvider<Component> vertexIDProvider = new IntegerComponentNameProvider<>();
     private static final ComponentNameProvider<DefaultEdge> NULL_EDGE_LABEL = edge -> "";
 
+    private final ReactorIndex index;
     private final Map<Component, ComponentInstability> compInsts;
     private final Graph<Component, DefaultEdge> compGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
     private Path dotPath;
@@ -116,12 +114,14 @@ public final class JGraphComponentGraph implements DirectedComponentGraph
 
 
     /**
-     * @param componentInstabilities
+     * @param reactorIndex the index the instabilities were calculated with, the source of the class graph.
+     * @param componentInstabilities the instability of every component in the index.
      * @throws IOException
-     * @throws
      */
-    public JGraphComponentGraph(Map<Component, ComponentInstability> componentInstabilities) throws IOException
+    public JGraphComponentGraph(ReactorIndex reactorIndex, Map<Component, ComponentInstability> componentInstabilities)
+        throws IOException
     {
+        this.index = reactorIndex;
         this.compInsts = componentInstabilities;
         createDotFile();
         Collection<ComponentInstability> instabilities = componentInstabilities.values();
@@ -136,49 +136,6 @@ public final class JGraphComponentGraph implements DirectedComponentGraph
         });
     }
 
-    public void getDependencyPaths()
-    {
-        Set<Component> leaves = compGraph.vertexSet().stream().
-                                              filter(v -> Graphs.vertexHasSuccessors(compGraph, v)).
-                                              collect(Collectors.toSet());
-
-        for(Component vertex : compGraph.vertexSet())
-        {
-            // if we aren't a leaf
-            if(!leaves.contains(vertex))
-            {
-                for(Component leaf : leaves)
-                {
-                    AllDirectedPaths<Component, DefaultEdge> allPaths = new AllDirectedPaths<>(compGraph);
-                    List<GraphPath<Component, DefaultEdge>> depPaths = allPaths.getAllPaths(vertex, leaf, true, null);
-                    if(!depPaths.isEmpty())
-                    {
-                    }
-                }
-            }
-        }
-    }
-
-    public List<GraphPath<Component, DefaultEdge>>
-    gatherBadFlowPaths(List<GraphPath<Component, DefaultEdge>> depPaths)
-    {
-        List<GraphPath<Component, DefaultEdge>> badPaths = new ArrayList<>();
-        for(GraphPath<Component, DefaultEdge> path : depPaths)
-        {
-            List<DefaultEdge> edgesInPath = path.getEdgeList();
-            for(DefaultEdge edge : edgesInPath)
-            {
-                ComponentInstability sourceInstability = compInsts.get(compGraph.getEdgeSource(edge));
-                ComponentInstability targetInstability = compInsts.get(compGraph.getEdgeTarget(edge));
-                if(sourceInstability.getInstabilityValue() < targetInstability.getInstabilityValue())
-                {
-                    badPaths.add(path);
-                }
-            }
-        }
-        return badPaths;
-    }
-
     @Override
     public void exportDot() throws IOException
     {
@@ -193,7 +150,25 @@ public final class JGraphComponentGraph implements DirectedComponentGraph
         dotter.putGraphAttribute("label", "InstabilityDependencyFlow");
         dotter.putGraphAttribute("fontsize", "30");
 
-        dotter.exportGraph(compGraph, new FileWriter(Files.createFile(dotPath).toFile()));
+        try (FileWriter dotWriter = new FileWriter(Files.createFile(dotPath).toFile()))
+        {
+            dotter.exportGraph(compGraph, dotWriter);
+        }
+    }
+
+    /**
+     * The class graph is written straight from the {@link ReactorIndex}, it is never copied into a JGraphT graph.
+     */
+    @Override
+    public Path exportClassGraph(ClassGraphFormat format, Path outputDir) throws IOException
+    {
+        Path graphPath = Files.createDirectories(outputDir).resolve(format.getFileName());
+        try (FileChannel out = FileChannel.open(graphPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            format.createExporter().export(index, out);
+        }
+        return graphPath;
     }
 
     private void createDotFile() throws IOException
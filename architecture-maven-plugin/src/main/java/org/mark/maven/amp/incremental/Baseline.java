@@ -0,0 +1,178 @@
+package org.mark.maven.amp.incremental;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ClassGraph;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.model.SymbolTable;
+import org.mark.maven.amp.snapshot.ModelSnapshot;
+
+/**
+ * The class definitions and metrics of every component of a reactor, saved by one build so a later build of the same
+ * reactor only has to parse the modules that changed since. A baseline is saved as a {@link ModelSnapshot} of the
+ * whole reactor.
+ */
+public final class Baseline
+{
+    private static final class ModuleBaseline
+    {
+        private final List<ClassDef> classDefs;
+        private final double instability;
+        private final Set<String> dependencies;
+
+        private ModuleBaseline(List<ClassDef> moduleClassDefs, double moduleInstability, Set<String> dependsUpon)
+        {
+            this.classDefs = moduleClassDefs;
+            this.instability = moduleInstability;
+            this.dependencies = dependsUpon;
+        }
+    }
+
+    private final Map<String, ModuleBaseline> modules;
+
+    private Baseline(Map<String, ModuleBaseline> moduleBaselines)
+    {
+        this.modules = moduleBaselines;
+    }
+
+    /**
+     * @param index the index of the reactor.
+     * @param instabilities the instability of every component in the index.
+     * @return the baseline of the indexed components, in index order.
+     */
+    public static Baseline of(ReactorIndex index, Map<Component, ComponentInstability> instabilities)
+    {
+        ClassGraph graph = index.getClassGraph();
+        Map<String, ModuleBaseline> moduleBaselines = new LinkedHashMap<>();
+        for(int compIndex = 0; compIndex < graph.getNumComponents(); compIndex++)
+        {
+            ComponentInstability instability = instabilities.get(index.getComponents().get(compIndex));
+            Set<String> dependencies = new LinkedHashSet<>();
+            instability.getOutCompDeps().forEach(comp -> dependencies.add(comp.getName()));
+            List<ClassDef> classDefs = new ArrayList<>();
+            for(int node = graph.componentStart(compIndex); node < graph.componentEnd(compIndex); node++)
+            {
+                classDefs.add(graph.classAt(node));
+            }
+            moduleBaselines.put(instability.getComp().getName(),
+                                new ModuleBaseline(classDefs, instability.getInstabilityValue(), dependencies));
+        }
+        return new Baseline(moduleBaselines);
+    }
+
+    /**
+     * @return the names of the modules in the baseline, in reactor order.
+     */
+    public Set<String> getModuleNames()
+    {
+        return Collections.unmodifiableSet(modules.keySet());
+    }
+
+    public boolean contains(String moduleName)
+    {
+        return modules.containsKey(moduleName);
+    }
+
+    /**
+     * @return the classes of the module, empty if the module is not in the baseline.
+     */
+    public List<ClassDef> getClassDefs(String moduleName)
+    {
+        ModuleBaseline module = modules.get(moduleName);
+        return module == null ? Collections.emptyList() : Collections.unmodifiableList(module.classDefs);
+    }
+
+    /**
+     * @return the instability of the module, NaN if the module is not in the baseline.
+     */
+    public double getInstability(String moduleName)
+    {
+        ModuleBaseline module = modules.get(moduleName);
+        return module == null ? Double.NaN : module.instability;
+    }
+
+    /**
+     * @return the names of the modules the module depended upon, empty if the module is not in the baseline.
+     */
+    public Set<String> getDependencies(String moduleName)
+    {
+        ModuleBaseline module = modules.get(moduleName);
+        return module == null ? Collections.emptySet() : Collections.unmodifiableSet(module.dependencies);
+    }
+
+    /**
+     * A change to a module can only move the fan in and fan out of the module itself and of the modules it depends
+     * upon or that depend upon it, either in the baseline or now.
+     *
+     * @param changedModules the names of the modules that changed since the baseline.
+     * @param instabilities the current instability of every component.
+     * @return the names of the modules whose instability may differ from the baseline.
+     */
+    public Set<String> affectedBy(Set<String> changedModules, Map<Component, ComponentInstability> instabilities)
+    {
+        Set<String> affected = new LinkedHashSet<>(changedModules);
+        for(Map.Entry<String, ModuleBaseline> module : modules.entrySet())
+        {
+            if(changedModules.contains(module.getKey()))
+            {
+                affected.addAll(module.getValue().dependencies);
+            }
+            else if(module.getValue().dependencies.stream().anyMatch(changedModules::contains))
+            {
+                affected.add(module.getKey());
+            }
+        }
+        for(ComponentInstability instability : instabilities.values())
+        {
+            if(changedModules.contains(instability.getComp().getName()))
+            {
+                instability.getInCompDeps().forEach(comp -> affected.add(comp.getName()));
+                instability.getOutCompDeps().forEach(comp -> affected.add(comp.getName()));
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * @param baselineFile a {@link ModelSnapshot} saved by an earlier build.
+     * @param symbols the table of the analysis the baseline classes are reused in.
+     * @return the baseline saved in the file.
+     * @throws IOException if the file cannot be read or was not written by this version.
+     */
+    public static Baseline read(Path baselineFile, SymbolTable symbols) throws IOException
+    {
+        // Read rather than mapped, the build writes its new snapshot over this file
+        ModelSnapshot snapshot = ModelSnapshot.read(baselineFile);
+        try
+        {
+            Map<String, ModuleBaseline> moduleBaselines = new LinkedHashMap<>();
+            for(int comp = 0; comp < snapshot.getNumComponents(); comp++)
+            {
+                Set<String> dependencies = new LinkedHashSet<>();
+                for(int dependency : snapshot.componentDependencies(comp))
+                {
+                    dependencies.add(snapshot.componentName(dependency));
+                }
+                moduleBaselines.put(snapshot.componentName(comp),
+                                    new ModuleBaseline(snapshot.classDefs(symbols, comp), snapshot.instability(comp),
+                                                       dependencies));
+            }
+            return new Baseline(moduleBaselines);
+        }
+        catch (RuntimeException e)
+        {
+            throw new IOException("Unable to read baseline " + baselineFile, e);
+        }
+    }
+}
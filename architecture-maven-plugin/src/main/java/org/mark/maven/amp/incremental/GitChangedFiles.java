@@ -0,0 +1,188 @@
+package org.mark.maven.amp.incremental;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The files of a local git working tree that differ from a given revision, including staged, unstaged and untracked
+ * files. Renames are reported as a deletion and an addition so the modules on both sides count as changed.
+ *
+ * Paths are compared by their real path, so a module whose base directory is reached through a symbolic link still
+ * owns the files git reports under the working tree's real top level directory.
+ */
+public final class GitChangedFiles
+{
+    private final Set<Path> files;
+
+    /**
+     * @param changedFiles absolute, normalised paths of the changed files, real paths where the files exist.
+     */
+    public GitChangedFiles(Set<Path> changedFiles)
+    {
+        this.files = changedFiles;
+    }
+
+    /**
+     * Runs git in the working tree to list the files changed since the revision.
+     *
+     * @param revision the revision to compare the working tree against, typically the branch the baseline was built on.
+     * @param workTree any directory inside the working tree.
+     * @return the changed files.
+     * @throws IOException if git cannot be run or fails.
+     * @throws InterruptedException if interrupted while waiting for git.
+     */
+    public static GitChangedFiles since(String revision, Path workTree) throws IOException, InterruptedException
+    {
+        String topLevelName = git(workTree, "rev-parse", "--show-toplevel").trim();
+        if(topLevelName.isEmpty())
+        {
+            throw new IOException(workTree + " is not inside a git working tree");
+        }
+        Path topLevel = Paths.get(topLevelName).toRealPath();
+        Set<Path> changedFiles = new HashSet<>();
+        // NUL separated so git neither quotes nor escapes unusual file names
+        List<String> names = new ArrayList<>(nulSeparated(git(topLevel, "diff", "--name-only", "-z", "--no-renames",
+                                                              revision, "--")));
+        names.addAll(nulSeparated(git(topLevel, "ls-files", "-z", "--others", "--exclude-standard")));
+        for(String name : names)
+        {
+            changedFiles.add(realPath(topLevel.resolve(name)));
+        }
+        return new GitChangedFiles(changedFiles);
+    }
+
+    public Set<Path> getFiles()
+    {
+        return Collections.unmodifiableSet(files);
+    }
+
+    /**
+     * Assigns every changed file to the module with the deepest base directory that contains it, so a change in a
+     * child module does not count against its parent. A changed file that belongs to no module, such as a shared
+     * build script outside the reactor or a path that cannot be matched, counts as a change to every module, as
+     * reusing stale baseline classes is worse than parsing too much.
+     *
+     * @param moduleBasedirs the base directory of each module by module name.
+     * @return the names of the modules with at least one changed file.
+     */
+    public Set<String> modulesTouched(Map<String, Path> moduleBasedirs)
+    {
+        Map<String, Path> realBasedirs = new LinkedHashMap<>();
+        moduleBasedirs.forEach((name, basedir) -> realBasedirs.put(name, realPath(basedir)));
+        Set<String> touched = new LinkedHashSet<>();
+        for(Path changedFile : files)
+        {
+            Path file = realPath(changedFile);
+            String owner = null;
+            int ownerDepth = -1;
+            for(Map.Entry<String, Path> module : realBasedirs.entrySet())
+            {
+                Path basedir = module.getValue();
+                if(file.startsWith(basedir) && basedir.getNameCount() > ownerDepth)
+                {
+                    owner = module.getKey();
+                    ownerDepth = basedir.getNameCount();
+                }
+            }
+            if(owner == null)
+            {
+                return new LinkedHashSet<>(moduleBasedirs.keySet());
+            }
+            touched.add(owner);
+        }
+        return touched;
+    }
+
+    /**
+     * @return the real path of an existing file, or of the nearest existing directory above a file that no longer
+     *         exists, followed by the rest of its path.
+     */
+    private static Path realPath(Path path)
+    {
+        try
+        {
+            return path.toRealPath();
+        }
+        catch (IOException e)
+        {
+            Path absolute = path.toAbsolutePath().normalize();
+            Path parent = absolute.getParent();
+            return parent == null ? absolute : realPath(parent).resolve(absolute.getFileName());
+        }
+    }
+
+    private static List<String> nulSeparated(String output)
+    {
+        List<String> names = new ArrayList<>();
+        for(String name : output.split("\0"))
+        {
+            if(!name.isEmpty())
+            {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Runs git and returns its standard output. Standard error is read separately, so warnings git prints while
+     * succeeding never end up among the output, and is only reported when git fails.
+     */
+    private static String git(Path dir, String... args) throws IOException, InterruptedException
+    {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process git = new ProcessBuilder(command).directory(dir.toFile()).start();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Thread errReader = new Thread(() -> {
+            try
+            {
+                copy(git.getErrorStream(), err);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }, "amp-git-stderr");
+        errReader.setDaemon(true);
+        errReader.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = git.getInputStream())
+        {
+            copy(in, out);
+        }
+        int exitCode = git.waitFor();
+        errReader.join();
+        if(exitCode != 0)
+        {
+            throw new IOException("git " + String.join(" ", args) + " failed in " + dir + ": " +
+                                  new String(err.toByteArray(), StandardCharsets.UTF_8).trim());
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void copy(InputStream in, ByteArrayOutputStream out) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        int read;
+        while((read = in.read(buffer)) >= 0)
+        {
+            out.write(buffer, 0, read);
+        }
+    }
+}
@@ -1,62 +1,117 @@
 package org.mark.maven.amp.javaparser;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.Problem;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
-import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.EnumDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import org.mark.maven.amp.ClassDefCreator;
 import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.SymbolTable;
 
+/**
+ * {@link ClassDefCreator} that parses source files into a JavaParser AST at a given language level. Classes,
+ * interfaces, enums, records and annotation types are reported, files in the default package name their types without
+ * a package. A file that does not parse at the language level fails with every problem JavaParser reported. Each
+ * parse thread reuses its own configured parser, see {@link ParserPool}.
+ */
 public class JavaParserClassDefCreator implements ClassDefCreator
 {
+    /** The language level used unless another is given. */
+    public static final LanguageLevel DEFAULT_LANGUAGE_LEVEL = LanguageLevel.JAVA_17;
+
+    private final SymbolTable symbols;
+    private final ReferencedTypes referencedTypes;
+    private final ParserPool parsers;
+    private final LanguageLevel level;
+
+    /**
+     * @param symbolTable the table the names of the classes and their imports are interned in.
+     */
+    public JavaParserClassDefCreator(SymbolTable symbolTable)
+    {
+        this(symbolTable, false);
+    }
+
+    /**
+     * @param symbolTable the table the names of the classes and their imports are interned in.
+     * @param deepAnalysis whether the types each file refers to in its code, such as classes of its own package and
+     *            fully qualified names, are added to its imports, see {@link ReferencedTypes}.
+     */
+    public JavaParserClassDefCreator(SymbolTable symbolTable, boolean deepAnalysis)
+    {
+        this(symbolTable, deepAnalysis, DEFAULT_LANGUAGE_LEVEL);
+    }
+
+    /**
+     * @param symbolTable the table the names of the classes and their imports are interned in.
+     * @param deepAnalysis see {@link #JavaParserClassDefCreator(SymbolTable, boolean)}.
+     * @param languageLevel the Java version the sources are parsed and validated as.
+     */
+    public JavaParserClassDefCreator(SymbolTable symbolTable, boolean deepAnalysis, LanguageLevel languageLevel)
+    {
+        this.symbols = symbolTable;
+        this.referencedTypes = deepAnalysis ? new ReferencedTypes(symbolTable) : null;
+        this.parsers = new ParserPool(languageLevel);
+        this.level = languageLevel;
+    }
+
+    /**
+     * Includes the analysis mode and the language level, a file cached at one level may not parse at another.
+     */
+    @Override
+    public String getIdentity()
+    {
+        return getClass().getName() + ":" + (referencedTypes == null ? "imports" : "deep") + ":" + level;
+    }
+
+    @Override
+    public void releaseThread()
+    {
+        parsers.release();
+    }
 
     @Override
     public List<ClassDef> createClassDefFor(Path srcFilePath) throws ClassDefCreationException
     {
       List<ClassDef> classDefs = new ArrayList<>();
-      try(FileInputStream in = new FileInputStream(srcFilePath.toFile()))
+      try
       {
-          CompilationUnit compUnit = JavaParser.parse(in);
-
-          compUnit.accept(new VoidVisitorAdapter<Void>()
+          ParseResult<CompilationUnit> parsed = parsers.parse(srcFilePath);
+          if(!parsed.isSuccessful() || !parsed.getResult().isPresent())
           {
+              throw new ClassDefCreationException("Unable to parse src file " + srcFilePath + ": " +
+                                                  parsed.getProblems().stream().map(Problem::getVerboseMessage).
+                                                                       collect(Collectors.joining("; ")), null);
+          }
+          CompilationUnit compUnit = parsed.getResult().get();
+          // Every type in the file shares the one set of imports
+          ImmutableIntSet importIds = referencedTypes != null ? referencedTypes.idsOf(compUnit) :
+                                      symbols.internAll(compUnit.getImports().stream().
+                                                                map(ImportDeclaration::getNameAsString).
+                                                                collect(Collectors.toSet()));
 
-              @Override
-              public void visit(ClassOrInterfaceDeclaration n, Void arg)
-              {
-                  String name = compUnit.getPackageDeclaration().get().getNameAsString() + "." + n.getNameAsString();
-                  classDefs.add(createClassDef(name, n.isAbstract() || n.isInterface()));
-                  super.visit(n, arg);
-              }
-
-              @Override
-              public void visit(EnumDeclaration n, Void arg) {
-                  String name = compUnit.getPackageDeclaration().get().getNameAsString() + "." + n.getNameAsString();
-                  classDefs.add(createClassDef(name, false));
-                  super.visit(n, arg);
-              }
-
-              private ClassDef createClassDef(String name, boolean isAbstract)
-              {
-                  NodeList<ImportDeclaration> imports = compUnit.getImports();
-                  Set<String> importNames = imports.stream().
-                                                    map(ImportDeclaration::getNameAsString).
-                                                    collect(Collectors.toSet());
-                  return new ClassDef(name, importNames, isAbstract);
-              }
-
-          }, null);
+          String pkg = compUnit.getPackageDeclaration().map(decl -> decl.getNameAsString() + ".").orElse("");
+          for(TypeDeclaration<?> type : compUnit.getTypes())
+          {
+              String name = pkg + type.getNameAsString();
+              classDefs.add(new ClassDef(symbols, name, importIds, isAbstract(type),
+                                         nestedTypes(type, name, importIds)));
+          }
       }
       catch (IOException e)
       {
@@ -65,4 +120,62 @@ public class JavaParserClassDefCreator implements ClassDefCreator
       return classDefs;
     }
 
+    /**
+     * Every type declared within a top level type, named like javac names their class files:
+     * Outer$Inner for member types and Outer$1Local for the first local class called Local in Outer.
+     */
+    private List<ClassDef> nestedTypes(TypeDeclaration<?> topLevel, String topLevelName, ImmutableIntSet importIds)
+    {
+        List<ClassDef> nestedTypes = new ArrayList<>();
+        Map<Node, String> binaryNames = new IdentityHashMap<>();
+        Map<String, Integer> localClassCounts = new HashMap<>();
+        binaryNames.put(topLevel, topLevelName);
+        // Pre-order, so every enclosing type is named before the types declared within it
+        for(TypeDeclaration<?> type : topLevel.findAll(TypeDeclaration.class))
+        {
+            if(type == topLevel)
+            {
+                continue;
+            }
+            String enclosingName = binaryNames.get(enclosingType(type));
+            String binaryName;
+            // Types declared in a method, initialiser or anonymous class body rather than directly in a type body
+            if(!(type.getParentNode().orElse(null) instanceof TypeDeclaration))
+            {
+                int index = localClassCounts.merge(enclosingName + "$" + type.getNameAsString(), 1, Integer::sum);
+                binaryName = enclosingName + "$" + index + type.getNameAsString();
+            }
+            else
+            {
+                binaryName = enclosingName + "$" + type.getNameAsString();
+            }
+            binaryNames.put(type, binaryName);
+            nestedTypes.add(new ClassDef(symbols, binaryName, importIds, isAbstract(type)));
+        }
+        return nestedTypes;
+    }
+
+    private static Node enclosingType(Node node)
+    {
+        Node parent = node.getParentNode().get();
+        while(!(parent instanceof TypeDeclaration))
+        {
+            parent = parent.getParentNode().get();
+        }
+        return parent;
+    }
+
+    /**
+     * Interfaces, annotation types and abstract classes are abstract, enums and records never are.
+     */
+    private static boolean isAbstract(TypeDeclaration<?> type)
+    {
+        if(type instanceof ClassOrInterfaceDeclaration)
+        {
+            ClassOrInterfaceDeclaration classDecl = (ClassOrInterfaceDeclaration) type;
+            return classDecl.isAbstract() || classDecl.isInterface();
+        }
+        return type instanceof AnnotationDeclaration;
+    }
+
 }
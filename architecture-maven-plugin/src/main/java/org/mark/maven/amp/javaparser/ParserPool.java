@@ -0,0 +1,101 @@
+package org.mark.maven.amp.javaparser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+
+/**
+ * One configured {@link JavaParser} per parse thread for {@link JavaParserClassDefCreator}.
+ *
+ * A JavaParser keeps its generated parser and token manager between files, so reusing one per thread saves allocating
+ * them for every file, while the instance itself is not thread safe. Only declarations, imports and names are read
+ * from the AST, so comment attribution, lexical preservation, token storage and line separator detection are
+ * switched off.
+ *
+ * Each thread also keeps a buffer the whole file is read into with one bulk channel read, grown to the largest file
+ * seen, and decoded in one step rather than streamed through a decoder.
+ */
+final class ParserPool
+{
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private static final class Worker
+    {
+        private final JavaParser parser;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        private Worker(ParserConfiguration configuration)
+        {
+            this.parser = new JavaParser(configuration);
+        }
+
+        private ParseResult<CompilationUnit> parse(Path srcFilePath, Charset encoding) throws IOException
+        {
+            try (FileChannel channel = FileChannel.open(srcFilePath, StandardOpenOption.READ))
+            {
+                long size = channel.size();
+                if(size > Integer.MAX_VALUE)
+                {
+                    throw new IOException("Src file too large: " + size + " bytes");
+                }
+                if(size > buffer.capacity())
+                {
+                    buffer = ByteBuffer.allocate(Integer.highestOneBit((int) size - 1) << 1);
+                }
+                buffer.clear().limit((int) size);
+                while(buffer.hasRemaining())
+                {
+                    if(channel.read(buffer) < 0)
+                    {
+                        throw new EOFException("Src file truncated while reading: " + srcFilePath);
+                    }
+                }
+            }
+            return parser.parse(new String(buffer.array(), 0, buffer.position(), encoding));
+        }
+    }
+
+    private final ParserConfiguration configuration;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * @param languageLevel the Java version the sources are parsed and validated as.
+     */
+    ParserPool(LanguageLevel languageLevel)
+    {
+        this.configuration = new ParserConfiguration().setLanguageLevel(languageLevel).
+                                                       setAttributeComments(false).
+                                                       setLexicalPreservationEnabled(false).
+                                                       setStoreTokens(false).
+                                                       setDetectOriginalLineSeparator(false);
+        this.workers = ThreadLocal.withInitial(() -> new Worker(configuration));
+    }
+
+    /**
+     * @param srcFilePath a source file, read in the configuration's encoding, UTF-8 unless changed.
+     * @return the result of parsing the file with the calling thread's parser.
+     * @throws IOException if the file cannot be read.
+     */
+    ParseResult<CompilationUnit> parse(Path srcFilePath) throws IOException
+    {
+        return workers.get().parse(srcFilePath, configuration.getCharacterEncoding());
+    }
+
+    /**
+     * Drops the calling thread's parser and buffer, the next {@link #parse(Path)} on the thread creates new ones.
+     */
+    void release()
+    {
+        workers.remove();
+    }
+}
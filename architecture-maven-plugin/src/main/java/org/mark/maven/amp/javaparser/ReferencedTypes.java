@@ -0,0 +1,234 @@
+package org.mark.maven.amp.javaparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.TypeParameter;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.SymbolTable;
+
+/**
+ * Collects the types a compilation unit refers to in its code rather than its imports, for the deep analysis mode of
+ * {@link JavaParserClassDefCreator}.
+ *
+ * References are taken from type usages, annotations and the scopes of static member accesses, whose type segment is
+ * recognised by its upper case initial. A simple name that is not imported, declared in the file or a java.lang type
+ * can only be a type of the same package and is recorded as such. A qualified name is recorded as written, unless it
+ * is a member access whose first segment names a field, parameter or local variable declared in the file. Neither is
+ * checked against the reactor here, the class graph drops or resolves them like any other import, but every name
+ * recorded is interned in the symbol table of the run.
+ *
+ * One instance serves a whole run across every parse thread and caches the identifier of each same package
+ * candidate and whether a simple name is a java.lang type, so a name seen before costs two map lookups.
+ */
+final class ReferencedTypes
+{
+    private final SymbolTable symbols;
+    private final Map<String, Map<String, Integer>> candidateIds = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> javaLangTypes = new ConcurrentHashMap<>();
+
+    /**
+     * @param symbolTable the table the referenced names are interned in.
+     */
+    ReferencedTypes(SymbolTable symbolTable)
+    {
+        this.symbols = symbolTable;
+    }
+
+    /**
+     * @param compUnit a parsed source file.
+     * @return the identifiers of the file's imports together with the types it refers to.
+     */
+    ImmutableIntSet idsOf(CompilationUnit compUnit)
+    {
+        Set<String> shadowingNames = new HashSet<>();
+        List<String> importNames = new ArrayList<>();
+        for(ImportDeclaration importDecl : compUnit.getImports())
+        {
+            importNames.add(importDecl.getNameAsString());
+            if(!importDecl.isAsterisk())
+            {
+                shadowingNames.add(importDecl.getName().getIdentifier());
+            }
+        }
+        Set<String> simpleNames = new HashSet<>();
+        Set<String> qualifiedNames = new HashSet<>();
+        Set<String> memberAccesses = new HashSet<>();
+        Set<String> variableNames = new HashSet<>();
+        compUnit.walk(node -> collect(node, simpleNames, qualifiedNames, memberAccesses, shadowingNames,
+                                      variableNames));
+        simpleNames.removeAll(shadowingNames);
+        // Variables may be declared after their use, so the accesses are only filtered once the whole file is walked
+        for(String memberAccess : memberAccesses)
+        {
+            if(!variableNames.contains(memberAccess.substring(0, memberAccess.indexOf('.'))))
+            {
+                qualifiedNames.add(memberAccess);
+            }
+        }
+
+        String pkg = compUnit.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse("");
+        Map<String, Integer> pkgCandidates = candidateIds.computeIfAbsent(pkg, name -> new ConcurrentHashMap<>());
+        int[] ids = new int[importNames.size() + simpleNames.size() + qualifiedNames.size()];
+        int numIds = 0;
+        for(String importName : importNames)
+        {
+            ids[numIds++] = symbols.intern(importName);
+        }
+        for(String qualifiedName : qualifiedNames)
+        {
+            ids[numIds++] = symbols.intern(qualifiedName);
+        }
+        for(String simpleName : simpleNames)
+        {
+            if(!isJavaLangType(simpleName))
+            {
+                ids[numIds++] = pkgCandidates.computeIfAbsent(simpleName,
+                                                              name -> symbols.intern(pkg.isEmpty() ? name : pkg + "." + name));
+            }
+        }
+        return ImmutableIntSet.of(numIds == ids.length ? ids : Arrays.copyOf(ids, numIds));
+    }
+
+    private static void collect(Node node, Set<String> simpleNames, Set<String> qualifiedNames,
+                                Set<String> memberAccesses, Set<String> shadowingNames, Set<String> variableNames)
+    {
+        if(node instanceof ClassOrInterfaceType)
+        {
+            ClassOrInterfaceType type = (ClassOrInterfaceType) node;
+            if(!isScopeOfType(type))
+            {
+                List<String> segments = new ArrayList<>();
+                for(ClassOrInterfaceType t = type; t != null; t = t.getScope().orElse(null))
+                {
+                    segments.add(t.getName().getIdentifier());
+                }
+                Collections.reverse(segments);
+                addReference(segments, segments.size(), simpleNames, qualifiedNames);
+            }
+        }
+        else if(node instanceof AnnotationExpr)
+        {
+            List<String> segments = new ArrayList<>();
+            Collections.addAll(segments, ((AnnotationExpr) node).getNameAsString().split("\\."));
+            addReference(segments, segments.size(), simpleNames, qualifiedNames);
+        }
+        else if((node instanceof NameExpr || node instanceof FieldAccessExpr) && !isScopeOfFieldAccess(node))
+        {
+            List<String> segments = new ArrayList<>();
+            if(flatten((Expression) node, segments))
+            {
+                int typeEnd = 0;
+                while(typeEnd < segments.size() && !startsUpperCase(segments.get(typeEnd)))
+                {
+                    typeEnd++;
+                }
+                // A lone upper case name is more likely a constant than a type unless a method is called on it.
+                if(typeEnd < segments.size() - 1 || (typeEnd == segments.size() - 1 && isScopeOfMethodCall(node)))
+                {
+                    addReference(segments, typeEnd + 1, simpleNames, memberAccesses);
+                }
+            }
+        }
+        else if(node instanceof TypeDeclaration)
+        {
+            shadowingNames.add(((TypeDeclaration<?>) node).getNameAsString());
+        }
+        else if(node instanceof TypeParameter)
+        {
+            shadowingNames.add(((TypeParameter) node).getNameAsString());
+        }
+        else if(node instanceof VariableDeclarator)
+        {
+            variableNames.add(((VariableDeclarator) node).getNameAsString());
+        }
+        else if(node instanceof Parameter)
+        {
+            variableNames.add(((Parameter) node).getNameAsString());
+        }
+    }
+
+    private static void addReference(List<String> segments, int end, Set<String> simpleNames, Set<String> qualifiedNames)
+    {
+        if(startsUpperCase(segments.get(0)))
+        {
+            simpleNames.add(segments.get(0));
+        }
+        else if(end > 1)
+        {
+            qualifiedNames.add(String.join(".", segments.subList(0, end)));
+        }
+    }
+
+    private static boolean flatten(Expression expr, List<String> segments)
+    {
+        if(expr instanceof NameExpr)
+        {
+            segments.add(((NameExpr) expr).getName().getIdentifier());
+            return true;
+        }
+        if(expr instanceof FieldAccessExpr && flatten(((FieldAccessExpr) expr).getScope(), segments))
+        {
+            segments.add(((FieldAccessExpr) expr).getName().getIdentifier());
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isScopeOfType(ClassOrInterfaceType type)
+    {
+        Node parent = type.getParentNode().orElse(null);
+        return parent instanceof ClassOrInterfaceType && ((ClassOrInterfaceType) parent).getScope().orElse(null) == type;
+    }
+
+    private static boolean isScopeOfFieldAccess(Node node)
+    {
+        Node parent = node.getParentNode().orElse(null);
+        return parent instanceof FieldAccessExpr && ((FieldAccessExpr) parent).getScope() == node;
+    }
+
+    private static boolean isScopeOfMethodCall(Node node)
+    {
+        Node parent = node.getParentNode().orElse(null);
+        return parent instanceof MethodCallExpr && ((MethodCallExpr) parent).getScope().orElse(null) == node;
+    }
+
+    private static boolean startsUpperCase(String identifier)
+    {
+        return Character.isUpperCase(identifier.charAt(0));
+    }
+
+    private boolean isJavaLangType(String simpleName)
+    {
+        return javaLangTypes.computeIfAbsent(simpleName, name -> {
+            try
+            {
+                Class.forName("java.lang." + name, false, ClassLoader.getSystemClassLoader());
+                return true;
+            }
+            catch (ClassNotFoundException | LinkageError e)
+            {
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package org.mark.maven.amp.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Samples the bytes allocated so far by every live thread, where the JVM's thread MX bean supports it.
+ *
+ * The difference between two samples is an estimate of the allocation in between, across all threads. A thread that
+ * exits before the later sample only counts if it {@link #recordExit() recorded} its final allocation on the way out,
+ * as the threads of the parser pool do through {@link PipelineMetrics#countingAllocations(Runnable)}, any other
+ * misses whatever it allocated since the earlier sample.
+ */
+final class AllocationSampler
+{
+    /** Only stages open while a thread ran need its final allocation, so the oldest exits are forgotten. */
+    private static final int MAX_EXITED_THREADS = 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static final Map<Long, Long> EXITED_THREADS = Collections.synchronizedMap(new LinkedHashMap<Long, Long>()
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest)
+        {
+            return size() > MAX_EXITED_THREADS;
+        }
+    });
+
+    static final class Sample
+    {
+        private final Map<Long, Long> allocatedByThread;
+
+        private Sample(Map<Long, Long> threadAllocations)
+        {
+            this.allocatedByThread = threadAllocations;
+        }
+
+        /**
+         * @param earlier a sample taken before this one
+         * @return the bytes allocated between the samples, or -1 if allocation cannot be measured.
+         */
+        long bytesSince(Sample earlier)
+        {
+            if(allocatedByThread == null || earlier.allocatedByThread == null)
+            {
+                return -1;
+            }
+            long bytes = 0;
+            for(Map.Entry<Long, Long> thread : allocatedByThread.entrySet())
+            {
+                bytes += thread.getValue() - earlier.allocatedByThread.getOrDefault(thread.getKey(), 0L);
+            }
+            return Math.max(bytes, 0);
+        }
+    }
+
+    private AllocationSampler()
+    {
+    }
+
+    /**
+     * Records the bytes the calling thread allocated over its life, call as the last thing before the thread exits.
+     */
+    static void recordExit()
+    {
+        if(THREADS != null)
+        {
+            long threadId = Thread.currentThread().getId();
+            long allocated = THREADS.getThreadAllocatedBytes(threadId);
+            if(allocated >= 0)
+            {
+                EXITED_THREADS.put(threadId, allocated);
+            }
+        }
+    }
+
+    static Sample sample()
+    {
+        if(THREADS == null)
+        {
+            return new Sample(null);
+        }
+        Map<Long, Long> threadAllocations;
+        synchronized(EXITED_THREADS)
+        {
+            threadAllocations = new HashMap<>(EXITED_THREADS);
+        }
+        long[] threadIds = THREADS.getAllThreadIds();
+        long[] allocated = THREADS.getThreadAllocatedBytes(threadIds);
+        for(int i = 0; i < threadIds.length; i++)
+        {
+            // -1 for threads that exited since their ids were read
+            if(allocated[i] >= 0)
+            {
+                threadAllocations.put(threadIds[i], allocated[i]);
+            }
+        }
+        return new Sample(threadAllocations);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean()
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+            {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package org.mark.maven.amp.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Stage} timings of one goal execution, written as JSON for tracking across builds and summarised as a
+ * table for the build log.
+ */
+public final class PipelineMetrics
+{
+    private final String goal;
+    private final List<Stage> stages = new ArrayList<>();
+
+    /**
+     * @param goalName the goal the stages belong to.
+     */
+    public PipelineMetrics(String goalName)
+    {
+        this.goal = goalName;
+    }
+
+    /**
+     * Wraps the body of a worker thread that may exit while a stage is open, so the bytes it allocated still count
+     * towards the stage. Stages only sample the threads alive when they start and stop otherwise.
+     *
+     * @param threadBody what the thread runs.
+     * @return the body followed by recording the thread's allocation.
+     */
+    public static Runnable countingAllocations(Runnable threadBody)
+    {
+        return () -> {
+            try
+            {
+                threadBody.run();
+            }
+            finally
+            {
+                AllocationSampler.recordExit();
+            }
+        };
+    }
+
+    /**
+     * @param stageName the name of the stage, reported in the order stages are started.
+     * @return the started stage.
+     */
+    public Stage start(String stageName)
+    {
+        Stage stage = new Stage(stageName);
+        stages.add(stage);
+        return stage;
+    }
+
+    public List<Stage> getStages()
+    {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * @return the sum of the wall times of the stopped stages in nanoseconds.
+     */
+    public long getTotalWallNanos()
+    {
+        return stages.stream().filter(s -> s.getWallNanos() >= 0).mapToLong(Stage::getWallNanos).sum();
+    }
+
+    /**
+     * Writes the metrics as a single JSON object, replacing any previous file.
+     *
+     * @param metricsFile the file to write, its directory is created if missing.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(Path metricsFile) throws IOException
+    {
+        Files.createDirectories(metricsFile.toAbsolutePath().getParent());
+        try (Writer out = Files.newBufferedWriter(metricsFile, StandardCharsets.UTF_8))
+        {
+            writeJson(out);
+        }
+    }
+
+    /**
+     * Stage and counter names are written unescaped, they are fixed by the goal.
+     */
+    void writeJson(Writer out) throws IOException
+    {
+        out.write("{\"goal\":\"" + goal + "\",\"totalWallNanos\":" + getTotalWallNanos() + ",\"stages\":[");
+        for(int i = 0; i < stages.size(); i++)
+        {
+            Stage stage = stages.get(i);
+            out.write(i == 0 ? "{" : ",{");
+            out.write("\"name\":\"" + stage.getName() + "\"");
+            out.write(",\"wallNanos\":" + stage.getWallNanos());
+            out.write(",\"allocatedBytes\":" + stage.getAllocatedBytes());
+            out.write(",\"counters\":{");
+            out.write(stage.getCounters().entrySet().stream().
+                      map(counter -> "\"" + counter.getKey() + "\":" + counter.getValue()).
+                      collect(Collectors.joining(",")));
+            out.write("}}");
+        }
+        out.write("]}");
+        out.write(System.lineSeparator());
+    }
+
+    /**
+     * @return a header line and one line per stage of wall time, allocation and counters.
+     */
+    public List<String> summary()
+    {
+        int nameWidth = Math.max("Stage".length(), stages.stream().mapToInt(s -> s.getName().length()).max().orElse(0));
+        String format = "%-" + nameWidth + "s %10s %12s  %s";
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, format, "Stage", "Wall ms", "Alloc MB", "Counts"));
+        for(Stage stage : stages)
+        {
+            lines.add(String.format(Locale.ROOT, format,
+                                    stage.getName(),
+                                    stage.getWallNanos() < 0 ? "-" : String.format(Locale.ROOT, "%.1f", stage.getWallNanos() / 1e6),
+                                    stage.getAllocatedBytes() < 0 ? "-" : String.format(Locale.ROOT, "%.1f", stage.getAllocatedBytes() / 1048576.0),
+                                    formatCounters(stage.getCounters())));
+        }
+        lines.add(String.format(Locale.ROOT, format, "total",
+                                String.format(Locale.ROOT, "%.1f", getTotalWallNanos() / 1e6), "", "").trim());
+        return lines;
+    }
+
+    private static String formatCounters(Map<String, Long> counters)
+    {
+        return counters.entrySet().stream().
+                        map(counter -> counter.getKey() + "=" + counter.getValue()).
+                        collect(Collectors.joining(" "));
+    }
+}
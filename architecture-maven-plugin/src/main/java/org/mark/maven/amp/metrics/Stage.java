@@ -0,0 +1,77 @@
+package org.mark.maven.amp.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed stage of a goal, along with the counts of whatever it processed. A stage measures from its creation by
+ * {@link PipelineMetrics#start(String)} until {@link #stop()}.
+ */
+public final class Stage
+{
+    private final String name;
+    private final long startNanos;
+    private final AllocationSampler.Sample startAllocation;
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+    private long wallNanos = -1;
+    private long allocatedBytes = -1;
+
+    Stage(String stageName)
+    {
+        this.name = stageName;
+        this.startAllocation = AllocationSampler.sample();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds to a counter of the stage, counters are reported in the order they were first counted.
+     *
+     * @param counter the name of the counter.
+     * @param amount the amount to add.
+     * @return this stage.
+     */
+    public Stage count(String counter, long amount)
+    {
+        counters.merge(counter, amount, Long::sum);
+        return this;
+    }
+
+    /**
+     * Ends the stage, only the first call has any effect.
+     */
+    public void stop()
+    {
+        if(wallNanos < 0)
+        {
+            wallNanos = System.nanoTime() - startNanos;
+            allocatedBytes = AllocationSampler.sample().bytesSince(startAllocation);
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the wall time of the stage in nanoseconds, or -1 if it has not stopped.
+     */
+    public long getWallNanos()
+    {
+        return wallNanos;
+    }
+
+    /**
+     * @return an estimate of the bytes allocated during the stage, or -1 if unknown or the stage has not stopped.
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    public Map<String, Long> getCounters()
+    {
+        return Collections.unmodifiableMap(counters);
+    }
+}
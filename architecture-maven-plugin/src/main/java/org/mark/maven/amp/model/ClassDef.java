@@ -1,28 +1,130 @@
 package org.mark.maven.amp.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * A class, interface or enum and the fully qualified names it imports.
+ *
+ * Names are interned in the {@link SymbolTable} of the analysis when the class is created, the class holds its own
+ * name and its imports as int identifiers. The imports are an {@link ImmutableIntSet} so {@link #imports(int)} is a
+ * single allocation free hash probe. It is called for every class against every import candidate during analysis.
+ *
+ * Nested, inner and local types are children of the top level class declared in their file rather than classes in
+ * their own right. They are named by their binary name (Outer$Inner, Outer$1Local), share their owner's imports and
+ * take no part in the dependency graph, so only the {@link NestedTypePolicy} decides whether metrics count them. A
+ * nested type does not refer back to its owner, instances are immutable and may be shared, the owner is the class
+ * whose {@link #getNestedTypes()} list holds it.
+ */
 public final class ClassDef
 {
-    private final String name;
-    private final Set<String> imports;
+    private final SymbolTable symbols;
+    private final int id;
+    private final ImmutableIntSet importIds;
     private final boolean abstractOrInterface;
+    private final List<ClassDef> nestedTypes;
 
-    public ClassDef(String fullName, Set<String> imports, boolean isAbstract)
+    public ClassDef(SymbolTable symbolTable, String fullName, Set<String> imports, boolean isAbstract)
     {
-        this.name = fullName;
-        this.imports = imports;
+        this(symbolTable, fullName, symbolTable.internAll(imports), isAbstract);
+    }
+
+    /**
+     * @param symbolTable the table the names are interned in.
+     * @param fullName the fully qualified name of the class.
+     * @param importIds the identifiers of the imported names, see {@link SymbolTable#internAll(java.util.Collection)}.
+     *            Classes declared in the same file can share one set.
+     * @param isAbstract whether the class is abstract or an interface.
+     */
+    public ClassDef(SymbolTable symbolTable, String fullName, ImmutableIntSet importIds, boolean isAbstract)
+    {
+        this(symbolTable, fullName, importIds, isAbstract, Collections.emptyList());
+    }
+
+    /**
+     * @param symbolTable the table the names are interned in.
+     * @param fullName the fully qualified name of the top level class.
+     * @param importIds the identifiers of the imported names, see {@link SymbolTable#internAll(java.util.Collection)}.
+     * @param isAbstract whether the class is abstract or an interface.
+     * @param nestedTypes every type declared within the class at any depth, in declaration order. None may have nested
+     *            types of its own.
+     * @throws IllegalArgumentException if a nested type has nested types or was interned in another table.
+     */
+    public ClassDef(SymbolTable symbolTable, String fullName, ImmutableIntSet importIds, boolean isAbstract,
+                    List<ClassDef> nestedTypes)
+    {
+        this.symbols = symbolTable;
+        this.id = symbolTable.intern(fullName);
+        this.importIds = importIds;
         this.abstractOrInterface = isAbstract;
+        this.nestedTypes = nestedTypes.isEmpty() ? Collections.emptyList() :
+                           Collections.unmodifiableList(new ArrayList<>(nestedTypes));
+        for(ClassDef nestedType : nestedTypes)
+        {
+            if(!nestedType.nestedTypes.isEmpty() || nestedType.symbols != symbolTable)
+            {
+                throw new IllegalArgumentException(nestedType.getFullQualName() + " cannot be nested in " + fullName);
+            }
+        }
     }
 
     public boolean imports(String fullClassName)
     {
-        return imports.stream().anyMatch(i -> i.equals(fullClassName));
+        return importIds.contains(symbols.idOf(fullClassName));
+    }
+
+    /**
+     * @param classId the {@link SymbolTable} identifier of a class.
+     * @return whether this class imports the identified class.
+     */
+    public boolean imports(int classId)
+    {
+        return importIds.contains(classId);
+    }
+
+    /**
+     * @return the {@link SymbolTable} identifiers of the names this class imports.
+     */
+    public ImmutableIntSet getImportIds()
+    {
+        return importIds;
+    }
+
+    /**
+     * Resolves every imported identifier back to its name. Prefer {@link #getImportIds()} in analysis code, this
+     * creates a new set on every call.
+     *
+     * @return the fully qualified names this class imports, the set cannot be modified.
+     */
+    public Set<String> getImports()
+    {
+        Set<String> imports = new HashSet<>();
+        importIds.forEach(importId -> imports.add(symbols.nameOf(importId)));
+        return Collections.unmodifiableSet(imports);
+    }
+
+    /**
+     * @return the table this class' name and imports are interned in.
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * @return the {@link SymbolTable} identifier of this class' name.
+     */
+    public int getId()
+    {
+        return id;
     }
 
     public String getFullQualName()
     {
-        return name;
+        return symbols.nameOf(id);
     }
 
     public boolean isAbstract()
@@ -30,11 +132,36 @@ public final class ClassDef
         return abstractOrInterface;
     }
 
+    /**
+     * @return the types declared within this class at any depth, empty for a nested type.
+     */
+    public List<ClassDef> getNestedTypes()
+    {
+        return nestedTypes;
+    }
+
+    /**
+     * @return whether this is a local class or declared within one, by the digits javac puts after the $ of a local
+     *         class' binary name, so Outer$1Local and Outer$1Local$Inner are both local.
+     */
+    public boolean isLocal()
+    {
+        String name = getFullQualName();
+        for(int nested = name.indexOf('$'); nested >= 0; nested = name.indexOf('$', nested + 1))
+        {
+            if(nested + 1 < name.length() && Character.isDigit(name.charAt(nested + 1)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString()
     {
         StringBuilder builder = new StringBuilder();
-        builder.append("ClassDef [fullName=").append(name).append(", imports=").append(imports).append("]");
+        builder.append("ClassDef [fullName=").append(getFullQualName()).append(", imports=").append(getImports()).append("]");
         return builder.toString();
     }
 }
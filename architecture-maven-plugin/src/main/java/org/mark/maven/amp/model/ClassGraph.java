@@ -0,0 +1,272 @@
+package org.mark.maven.amp.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * The class level dependency graph of a reactor in compressed sparse row form.
+ *
+ * Every {@link ClassDef} of every {@link Component} is a node, numbered consecutively component by component in the
+ * order the components were given. An edge runs from a class to every reactor class it imports, imports of classes
+ * outside the reactor are dropped. Wildcard imports reach every reactor class of their package and static imports the
+ * class of their member, see {@link ImportResolver}. Outgoing edges of node n are the targets between
+ * {@link #edgeStart(int)} and {@link #edgeEnd(int)}, incoming edges are held the same way in a second pair of arrays.
+ * The graph is a handful of int arrays however many classes and edges there are, with no object per edge.
+ */
+public final class ClassGraph
+{
+    private static final int NO_NODE = -1;
+
+    private final SymbolTable symbols;
+    private final ClassDef[] classes;
+    private final int[] componentOfNode;
+    private final int[] componentStart;
+    private final int[] nodeOfSymbol;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+    /**
+     * @param symbolTable the table every class of the components was interned in.
+     * @param components the components whose classes make up the graph.
+     * @throws IllegalArgumentException if a class was interned in another table.
+     */
+    public ClassGraph(SymbolTable symbolTable, List<Component> components)
+    {
+        this.symbols = symbolTable;
+        int numClasses = 0;
+        componentStart = new int[components.size() + 1];
+        for(int comp = 0; comp < components.size(); comp++)
+        {
+            componentStart[comp] = numClasses;
+            numClasses += components.get(comp).getSourceModule().getNumberOfClasses();
+        }
+        componentStart[components.size()] = numClasses;
+
+        classes = new ClassDef[numClasses];
+        componentOfNode = new int[numClasses];
+        nodeOfSymbol = new int[symbols.size()];
+        Arrays.fill(nodeOfSymbol, NO_NODE);
+        int node = 0;
+        for(int comp = 0; comp < components.size(); comp++)
+        {
+            for(ClassDef classDef : components.get(comp).getSourceModule())
+            {
+                if(classDef.getSymbols() != symbols)
+                {
+                    throw new IllegalArgumentException(classDef.getFullQualName() + " belongs to another symbol table");
+                }
+                classes[node] = classDef;
+                componentOfNode[node] = comp;
+                if(nodeOfSymbol[classDef.getId()] == NO_NODE)
+                {
+                    nodeOfSymbol[classDef.getId()] = node;
+                }
+                node++;
+            }
+        }
+
+        // Outgoing rows are collected in node order as the imports are resolved, incoming rows are then counted and
+        // filled from them.
+        EdgeCollector edges = new EdgeCollector(numClasses, new ImportResolver(symbols, classes, nodeOfSymbol));
+        outOffsets = new int[numClasses + 1];
+        for(int source = 0; source < numClasses; source++)
+        {
+            edges.source = source;
+            classes[source].getImportIds().forEach(edges);
+            outOffsets[source + 1] = edges.numEdges;
+        }
+        outTargets = Arrays.copyOf(edges.targets, edges.numEdges);
+
+        inOffsets = new int[numClasses + 1];
+        for(int target : outTargets)
+        {
+            inOffsets[target + 1]++;
+        }
+        for(int n = 0; n < numClasses; n++)
+        {
+            inOffsets[n + 1] += inOffsets[n];
+        }
+        inSources = new int[outTargets.length];
+        int[] inFill = Arrays.copyOf(inOffsets, numClasses);
+        for(int source = 0; source < numClasses; source++)
+        {
+            for(int edge = outOffsets[source]; edge < outOffsets[source + 1]; edge++)
+            {
+                inSources[inFill[outTargets[edge]]++] = source;
+            }
+        }
+    }
+
+    /**
+     * @return the table the identifiers of the graph's classes and imports belong to.
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    public int getNumClasses()
+    {
+        return classes.length;
+    }
+
+    public int getNumEdges()
+    {
+        return outTargets.length;
+    }
+
+    public int getNumComponents()
+    {
+        return componentStart.length - 1;
+    }
+
+    /**
+     * @param classId the {@link SymbolTable} identifier of a class.
+     * @return the node of the identified class or -1 if the class is not in the graph.
+     */
+    public int nodeOf(int classId)
+    {
+        return classId >= 0 && classId < nodeOfSymbol.length ? nodeOfSymbol[classId] : NO_NODE;
+    }
+
+    public ClassDef classAt(int node)
+    {
+        return classes[node];
+    }
+
+    /**
+     * @param node a node of the graph.
+     * @return the index, in the list the graph was built from, of the component the node's class belongs to.
+     */
+    public int componentOf(int node)
+    {
+        return componentOfNode[node];
+    }
+
+    /**
+     * @param comp the index of a component.
+     * @return the first node of the component, its nodes run up to {@link #componentEnd(int)}.
+     */
+    public int componentStart(int comp)
+    {
+        return componentStart[comp];
+    }
+
+    /**
+     * @param comp the index of a component.
+     * @return one past the last node of the component.
+     */
+    public int componentEnd(int comp)
+    {
+        return componentStart[comp + 1];
+    }
+
+    /**
+     * @param node a node of the graph.
+     * @return the index of the first outgoing edge of the node, for use with {@link #edgeTarget(int)}.
+     */
+    public int edgeStart(int node)
+    {
+        return outOffsets[node];
+    }
+
+    /**
+     * @param node a node of the graph.
+     * @return one past the index of the last outgoing edge of the node.
+     */
+    public int edgeEnd(int node)
+    {
+        return outOffsets[node + 1];
+    }
+
+    /**
+     * @param edge the index of an outgoing edge.
+     * @return the node the edge points to, a class imported by the edge's source.
+     */
+    public int edgeTarget(int edge)
+    {
+        return outTargets[edge];
+    }
+
+    /**
+     * @param node a node of the graph.
+     * @return the index of the first incoming edge of the node, for use with {@link #inEdgeSource(int)}.
+     */
+    public int inEdgeStart(int node)
+    {
+        return inOffsets[node];
+    }
+
+    /**
+     * @param node a node of the graph.
+     * @return one past the index of the last incoming edge of the node.
+     */
+    public int inEdgeEnd(int node)
+    {
+        return inOffsets[node + 1];
+    }
+
+    /**
+     * @param edge the index of an incoming edge.
+     * @return the node the edge comes from, a class that imports the edge's target.
+     */
+    public int inEdgeSource(int edge)
+    {
+        return inSources[edge];
+    }
+
+    /**
+     * Appends every other node the current source imports once, resolving imports that are not a class through the
+     * {@link ImportResolver}. lastSource holds, by node, the last source that reached it and keeps a class imported
+     * both by name and by wildcard to one edge.
+     */
+    private final class EdgeCollector implements IntConsumer
+    {
+        private final ImportResolver resolver;
+        private final int[] lastSource;
+        private int[] targets;
+        private int numEdges;
+        private int source;
+
+        EdgeCollector(int numClasses, ImportResolver resolver)
+        {
+            this.resolver = resolver;
+            lastSource = new int[numClasses];
+            Arrays.fill(lastSource, NO_NODE);
+            targets = new int[Math.max(16, numClasses)];
+        }
+
+        @Override
+        public void accept(int importId)
+        {
+            int target = nodeOf(importId);
+            if(target != NO_NODE)
+            {
+                add(target);
+            }
+            else
+            {
+                for(int resolved : resolver.resolve(importId))
+                {
+                    add(resolved);
+                }
+            }
+        }
+
+        private void add(int target)
+        {
+            if(target != source && lastSource[target] != source)
+            {
+                lastSource[target] = source;
+                if(numEdges == targets.length)
+                {
+                    targets = Arrays.copyOf(targets, numEdges * 2);
+                }
+                targets[numEdges++] = target;
+            }
+        }
+    }
+}
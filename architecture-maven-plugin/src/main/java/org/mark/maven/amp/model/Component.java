@@ -1,8 +1,9 @@
 package org.mark.maven.amp.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -10,8 +11,8 @@ import java.util.Set;
 
 
 /**
- * Represents an architectural component. In this system a Maven module is considered a component.
- * It consists of a name (artifact ID) and a source module.
+ * Represents an architectural component. By default a Maven module is considered a component, see
+ * {@link Granularity} for the alternatives. It consists of a name (artifact ID) and a source module.
  *
  * Architecturally this offers methods to get the details of the component, number of classes etc, also clients can
  * calculate abstractness, and create an {@link ComponentInstability} with respect to a List of other {@link Component}
@@ -27,21 +28,46 @@ public final class Component
     private final int numClasses;
     private final long numAbstractClasses;
     private final double abstractness;
+    private final int hash;
 
     public Component(String componentName, ModuleSource sourceModule)
+    {
+        this(componentName, sourceModule, NestedTypePolicy.TOP_LEVEL);
+    }
+
+    /**
+     * @param componentName the name of the component.
+     * @param sourceModule the top level classes of the component.
+     * @param nestedTypes which nested types the class counts, and so the abstraction, include.
+     */
+    public Component(String componentName, ModuleSource sourceModule, NestedTypePolicy nestedTypes)
     {
         this.name = componentName;
         this.srcModule = sourceModule;
-        this.numClasses = getNumClasses();
-        this.numAbstractClasses = getNumAbstractClasses();
+        this.numClasses = nestedTypes.countClasses(sourceModule);
+        this.numAbstractClasses = nestedTypes.countAbstractClasses(sourceModule);
         this.abstractness = (double) numAbstractClasses / (double) numClasses;
+        // Hashing the source module walks every class, components are used as map keys throughout analysis
+        this.hash = Objects.hash(srcModule);
     }
 
+    /**
+     * Calculates the instability of this component against the given components. When the instability of every
+     * component in a reactor is needed build a single {@link ReactorIndex} and use {@link ReactorIndex#instabilities()}
+     * instead, this method indexes the given components on every call.
+     *
+     * @param components the other components to calculate this components fan in and fan out against.
+     * @return the {@link ComponentInstability} of this component.
+     */
     public ComponentInstability instabilityAgainst(List<Component> components)
     {
-        ComponentDependencies fanIn = calculateFanIn(components);
-        ComponentDependencies fanOut = calculateFanOut(components);
-        return new ComponentInstability(this, fanIn, fanOut);
+        List<Component> allComponents = components;
+        if(!components.contains(this))
+        {
+            allComponents = new ArrayList<>(components);
+            allComponents.add(this);
+        }
+        return new ReactorIndex(symbolsOf(allComponents), allComponents).instabilities().get(this);
     }
 
     public String getName()
@@ -49,14 +75,18 @@ public final class Component
         return name;
     }
 
+    /**
+     * @return the number of classes under the component's {@link NestedTypePolicy}, the top level classes alone are
+     *         {@link ModuleSource#getNumberOfClasses()}.
+     */
     public int getNumClasses()
     {
-        return srcModule.getNumberOfClasses();
+        return numClasses;
     }
 
     public long getNumAbstractClasses()
     {
-        return srcModule.getNumberOfAbstractClasses();
+        return numAbstractClasses;
     }
 
     public double getAbstraction()
@@ -64,98 +94,61 @@ public final class Component
         return abstractness;
     }
 
+    /**
+     * Resolves imports the same way as {@link ReactorIndex}, so wildcard and static imports count, but indexes both
+     * components on every call. When checking many pairs of components build a single {@link ReactorIndex} and use
+     * {@link ReactorIndex#dependsUpon(Component, Component)} instead.
+     *
+     * @param otherComp the component to check
+     * @return whether any class in this component imports a class in the other component.
+     */
     public boolean dependsUpon(Component otherComp)
     {
         // Can't depend upon yourself..
         if(otherComp == this) { return false; }
 
-        for(ClassDef otherClass : otherComp.srcModule)
-        {
-            if(srcModule.anyImports(otherClass.getFullQualName()))
-            {
-                return true;
-            }
-        }
-        return false;
+        return pairIndex(otherComp).dependsUpon(this, otherComp);
     }
 
+    /**
+     * Indexes both components on every call, see {@link ReactorIndex#dependents(Component, Component)}.
+     *
+     * @param otherComp the component this component depends upon
+     * @return every class in the other component imported by this component, mapped to the classes that import it.
+     */
     public Map<ClassDef, Set<ClassDef>> dependents(Component otherComp)
     {
-        Map<ClassDef, Set<ClassDef>> results = new HashMap<>();
         // Can't depend upon yourself..
-        if(!this.dependsUpon(otherComp)) { return results; }
+        if(otherComp == this) { return new HashMap<>(); }
 
-        otherComp.srcModule.forEach(cd -> {
-            Set<ClassDef> importers = srcModule.classesThatImport(cd.getFullQualName());
-            results.put(cd, importers);
-        });
-        return results;
+        return pairIndex(otherComp).dependents(this, otherComp);
     }
 
-    private ModuleSource getSourceModule()
+    private ReactorIndex pairIndex(Component otherComp)
     {
-        return srcModule;
+        List<Component> pair = Arrays.asList(this, otherComp);
+        return new ReactorIndex(symbolsOf(pair), pair);
     }
 
     /**
-     * Outgoing dependencies. The number of classes inside this component that depend upon classes in
-     * the given List of other components.
-     *
-     * @param otherComponents
-     *            the other components to calculate this components fan out against.
-     * @return
+     * @return the table the classes of the components were interned in, any table when they have no classes.
      */
-    private ComponentDependencies calculateFanOut(List<Component> otherComponents)
+    private static SymbolTable symbolsOf(List<Component> components)
     {
-        List<ClassDef> outsideClassDeps = new ArrayList<>();
-        Set<Component> outsideCompDeps = new HashSet<>();
-        for (Component outsideComponent : otherComponents)
+        for(Component component : components)
         {
-            if(!outsideComponent.equals(this))
+            Iterator<ClassDef> classes = component.srcModule.iterator();
+            if(classes.hasNext())
             {
-                for(ClassDef outsideClass : outsideComponent.srcModule)
-                {
-                    Set<ClassDef> classesThatImport = srcModule.classesThatImport(outsideClass.getFullQualName());
-                    outsideClassDeps.addAll(classesThatImport);
-                    if(!classesThatImport.isEmpty())
-                    {
-                        outsideCompDeps.add(outsideComponent);
-                    }
-                }
+                return classes.next().getSymbols();
             }
         }
-        return new ComponentDependencies(this, outsideClassDeps, outsideCompDeps);
+        return new SymbolTable();
     }
 
-    /**
-     * Incoming dependencies. The number of classes outside this component that depend upon classes within this
-     * component.
-     *
-     * @param otherComponents
-     *            the other components to calculate this components fan out against.
-     * @return
-     */
-    private ComponentDependencies calculateFanIn(List<Component> otherComponents)
+    ModuleSource getSourceModule()
     {
-        List<ClassDef> incomingDependents = new ArrayList<>();
-        Set<Component> incomingCompDeps = new HashSet<>();
-        for(ClassDef srcClass : srcModule)
-        {
-            for(Component outsideComponent : otherComponents)
-            {
-                if(!outsideComponent.equals(this))
-                {
-                    ModuleSource outsideSource = outsideComponent.getSourceModule();
-                    Set<ClassDef> outsideDependents = outsideSource.classesThatImport(srcClass.getFullQualName());
-                    incomingDependents.addAll(outsideDependents);
-                    if(!outsideDependents.isEmpty())
-                    {
-                        incomingCompDeps.add(outsideComponent);
-                    }
-                }
-            }
-        }
-        return new ComponentDependencies(this, incomingDependents, incomingCompDeps);
+        return srcModule;
     }
 
     @Override
@@ -167,7 +160,7 @@ public final class Component
     @Override
     public int hashCode()
     {
-        return Objects.hash(srcModule);
+        return hash;
     }
 
     @Override
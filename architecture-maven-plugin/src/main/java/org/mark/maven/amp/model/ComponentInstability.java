@@ -59,6 +59,14 @@ public final class ComponentInstability implements Comparable<ComponentInstabili
         return comp;
     }
 
+    /**
+     * @return the distance of the component from the main sequence, where abstraction plus instability is one.
+     */
+    public double getDistance()
+    {
+        return Math.abs(comp.getAbstraction() + instability - 1);
+    }
+
     @Override
     public int compareTo(ComponentInstability o)
     {
@@ -0,0 +1,91 @@
+package org.mark.maven.amp.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the classes of a reactor are grouped into {@link Component} instances, selectable through the stability goal's
+ * granularity parameter.
+ */
+public enum Granularity
+{
+    /** One component per Maven module, named after the module. */
+    MODULE
+    {
+        @Override
+        public List<Component> componentsOf(List<ModuleSource> srcModules, int packageDepth,
+                                            NestedTypePolicy nestedTypes)
+        {
+            List<Component> components = new ArrayList<>(srcModules.size());
+            for(ModuleSource srcModule : srcModules)
+            {
+                components.add(new Component(srcModule.getName(), srcModule, nestedTypes));
+            }
+            return components;
+        }
+    },
+
+    /**
+     * One component per package, or per package prefix of packageDepth segments when packageDepth is positive, across
+     * every module of the reactor. Classes in the default package form a component named {@value #DEFAULT_PACKAGE}.
+     */
+    PACKAGE
+    {
+        @Override
+        public List<Component> componentsOf(List<ModuleSource> srcModules, int packageDepth,
+                                            NestedTypePolicy nestedTypes)
+        {
+            Map<String, List<ClassDef>> packages = new LinkedHashMap<>();
+            for(ModuleSource srcModule : srcModules)
+            {
+                for(ClassDef classDef : srcModule)
+                {
+                    packages.computeIfAbsent(packageOf(classDef.getFullQualName(), packageDepth),
+                                             name -> new ArrayList<>()).add(classDef);
+                }
+            }
+            List<Component> components = new ArrayList<>(packages.size());
+            packages.forEach((name, classDefs) -> components.add(new Component(name, new ModuleSource(name, classDefs),
+                                                                              nestedTypes)));
+            return components;
+        }
+    };
+
+    /** The name of the component holding classes in the default package. */
+    public static final String DEFAULT_PACKAGE = "(default)";
+
+    /**
+     * @param srcModules the classes of every module in the reactor, in reactor order.
+     * @param packageDepth the number of leading package segments that name a component, 0 for the whole package.
+     *        Ignored at module granularity.
+     * @param nestedTypes which nested types the components count as classes.
+     * @return the components, in the order their first class appears in the reactor.
+     */
+    public abstract List<Component> componentsOf(List<ModuleSource> srcModules, int packageDepth,
+                                                 NestedTypePolicy nestedTypes);
+
+    static String packageOf(String fullClassName, int packageDepth)
+    {
+        int end = fullClassName.lastIndexOf('.');
+        if(end < 0)
+        {
+            return DEFAULT_PACKAGE;
+        }
+        if(packageDepth > 0)
+        {
+            int segmentEnd = -1;
+            for(int segment = 0; segment < packageDepth; segment++)
+            {
+                segmentEnd = fullClassName.indexOf('.', segmentEnd + 1);
+                if(segmentEnd < 0 || segmentEnd >= end)
+                {
+                    return fullClassName.substring(0, end);
+                }
+            }
+            end = segmentEnd;
+        }
+        return fullClassName.substring(0, end);
+    }
+}
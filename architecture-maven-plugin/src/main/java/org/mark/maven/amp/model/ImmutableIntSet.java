@@ -0,0 +1,166 @@
+package org.mark.maven.amp.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of non negative ints that cannot be modified once created. Members are stored in an open addressing hash table
+ * of primitive ints at most half full, so {@link #contains(int)} is allocation free and normally a single probe.
+ */
+public final class ImmutableIntSet
+{
+    private static final int FREE = -1;
+
+    /** The empty set. */
+    public static final ImmutableIntSet EMPTY = new ImmutableIntSet(new int[] {FREE}, 0);
+
+    private final int[] table;
+    private final int size;
+
+    private ImmutableIntSet(int[] slots, int numMembers)
+    {
+        this.table = slots;
+        this.size = numMembers;
+    }
+
+    /**
+     * @param values the members of the set, duplicates are ignored.
+     * @return a set of the given values.
+     * @throws IllegalArgumentException if any value is negative.
+     */
+    public static ImmutableIntSet of(int... values)
+    {
+        if(values.length == 0)
+        {
+            return EMPTY;
+        }
+        int capacity = Integer.highestOneBit(values.length) * 4;
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        int numMembers = 0;
+        for(int value : values)
+        {
+            if(value < 0)
+            {
+                throw new IllegalArgumentException("Negative value " + value);
+            }
+            int slot = slotOf(slots, value);
+            if(slots[slot] == FREE)
+            {
+                slots[slot] = value;
+                numMembers++;
+            }
+        }
+        return new ImmutableIntSet(slots, numMembers);
+    }
+
+    public boolean contains(int value)
+    {
+        return value >= 0 && table[slotOf(table, value)] == value;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Passes every member to the given action, in no particular order.
+     *
+     * @param action the action to perform on each member.
+     */
+    public void forEach(IntConsumer action)
+    {
+        for(int value : table)
+        {
+            if(value != FREE)
+            {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return a new array of the members, in no particular order.
+     */
+    public int[] toArray()
+    {
+        int[] members = new int[size];
+        int i = 0;
+        for(int value : table)
+        {
+            if(value != FREE)
+            {
+                members[i++] = value;
+            }
+        }
+        return members;
+    }
+
+    /**
+     * @return the slot holding the value or the free slot the value would be stored in.
+     */
+    private static int slotOf(int[] slots, int value)
+    {
+        int mask = slots.length - 1;
+        int slot = (value * 0x9E3779B9) >>> 7 & mask;
+        while(slots[slot] != FREE && slots[slot] != value)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 0;
+        for(int value : table)
+        {
+            if(value != FREE)
+            {
+                hash += value;
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if(other == this)
+        {
+            return true;
+        }
+        if(!(other instanceof ImmutableIntSet))
+        {
+            return false;
+        }
+        ImmutableIntSet otherSet = (ImmutableIntSet) other;
+        if(otherSet.size != size)
+        {
+            return false;
+        }
+        for(int value : table)
+        {
+            if(value != FREE && !otherSet.contains(value))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        int[] members = toArray();
+        Arrays.sort(members);
+        return Arrays.toString(members);
+    }
+}
@@ -0,0 +1,122 @@
+package org.mark.maven.amp.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the imports that do not name a reactor class, as recorded by the {@link ClassDef} creators, against an
+ * index of the packages of every class in the reactor.
+ *
+ * The creators record a wildcard import by its package, <code>import com.foo.*</code> as com.foo, which resolves to
+ * every class of the package. A static import is recorded by its member, <code>import static com.foo.Util.x</code>
+ * as com.foo.Util.x, and resolves to the nearest enclosing name that is a class, here com.foo.Util. Static wildcards
+ * are recorded by their class and need no resolving.
+ *
+ * Each distinct import is resolved once and memoized by its {@link SymbolTable} identifier, so an import that names a
+ * class directly costs nothing more and any other costs one array read after its first use.
+ */
+final class ImportResolver
+{
+    private static final int[] NO_NODES = new int[0];
+    private static final int UNRESOLVED = -1;
+
+    private final SymbolTable symbols;
+    private final int[] nodeOfSymbol;
+    private final Map<String, int[]> packageRuns = new HashMap<>();
+    private final int[] resolution;
+    private final List<int[]> resolvedNodes = new ArrayList<>();
+
+    /**
+     * @param symbolTable the table the identifiers belong to.
+     * @param classes the classes of the reactor by node.
+     * @param classNodes the node of each class by {@link SymbolTable} identifier, -1 for names that are not classes.
+     */
+    ImportResolver(SymbolTable symbolTable, ClassDef[] classes, int[] classNodes)
+    {
+        this.symbols = symbolTable;
+        this.nodeOfSymbol = classNodes;
+        // Classes of a package are mostly consecutive nodes, so the index keeps runs of nodes and only cuts a new
+        // package name where the package changes.
+        int runStart = 0;
+        for(int node = 1; node <= classes.length; node++)
+        {
+            if(node == classes.length || !samePackage(classes[runStart].getFullQualName(), classes[node].getFullQualName()))
+            {
+                String name = classes[runStart].getFullQualName();
+                String pkg = name.substring(0, Math.max(0, name.lastIndexOf('.')));
+                int[] runs = packageRuns.get(pkg);
+                runs = runs == null ? new int[2] : Arrays.copyOf(runs, runs.length + 2);
+                runs[runs.length - 2] = runStart;
+                runs[runs.length - 1] = node;
+                packageRuns.put(pkg, runs);
+                runStart = node;
+            }
+        }
+        resolution = new int[classNodes.length];
+        Arrays.fill(resolution, UNRESOLVED);
+    }
+
+    private static boolean samePackage(String name, String otherName)
+    {
+        int end = name.lastIndexOf('.');
+        return end == otherName.lastIndexOf('.') && name.regionMatches(0, otherName, 0, Math.max(0, end));
+    }
+
+    /**
+     * @param importId the {@link SymbolTable} identifier of an import that is not a reactor class.
+     * @return the nodes the import refers to, empty for an import from outside the reactor.
+     */
+    int[] resolve(int importId)
+    {
+        if(importId >= resolution.length)
+        {
+            return resolveName(symbols.nameOf(importId));
+        }
+        if(resolution[importId] == UNRESOLVED)
+        {
+            resolution[importId] = resolvedNodes.size();
+            resolvedNodes.add(resolveName(symbols.nameOf(importId)));
+        }
+        return resolvedNodes.get(resolution[importId]);
+    }
+
+    private int[] resolveName(String importName)
+    {
+        int[] runs = packageRuns.get(importName);
+        if(runs != null)
+        {
+            return nodesOf(runs);
+        }
+        for(int end = importName.lastIndexOf('.'); end > 0; end = importName.lastIndexOf('.', end - 1))
+        {
+            int enclosingId = symbols.idOf(importName.substring(0, end));
+            if(enclosingId >= 0 && enclosingId < nodeOfSymbol.length && nodeOfSymbol[enclosingId] >= 0)
+            {
+                return new int[] {nodeOfSymbol[enclosingId]};
+            }
+        }
+        return NO_NODES;
+    }
+
+    private static int[] nodesOf(int[] runs)
+    {
+        int numNodes = 0;
+        for(int run = 0; run < runs.length; run += 2)
+        {
+            numNodes += runs[run + 1] - runs[run];
+        }
+        int[] nodes = new int[numNodes];
+        int next = 0;
+        for(int run = 0; run < runs.length; run += 2)
+        {
+            for(int node = runs[run]; node < runs[run + 1]; node++)
+            {
+                nodes[next++] = node;
+            }
+        }
+        return nodes;
+    }
+}
@@ -35,7 +35,8 @@ public final class ModuleSource implements Iterable<ClassDef>
 
     public boolean containsClass(String fullClassName)
     {
-        return classes.stream().anyMatch(classDef -> classDef.getFullQualName().equals(fullClassName));
+        int classId = idOf(fullClassName);
+        return classes.stream().anyMatch(classDef -> classDef.getId() == classId);
     }
 
     /**
@@ -44,17 +45,39 @@ public final class ModuleSource implements Iterable<ClassDef>
      */
     public boolean anyImports(String fullClassName)
     {
-        return classes.stream().anyMatch(cd -> cd.imports(fullClassName));
+        return anyImports(idOf(fullClassName));
+    }
+
+    /**
+     * @param classId the {@link SymbolTable} identifier of the class to check
+     * @return whether any class in this {@link ModuleSource} imports the identified class.
+     */
+    public boolean anyImports(int classId)
+    {
+        for(ClassDef classDef : classes)
+        {
+            if(classDef.imports(classId))
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     public long numClassesThatImport(String fullClassName)
     {
-        return classes.stream().filter(cd -> cd.imports(fullClassName)).count();
+        int classId = idOf(fullClassName);
+        return classes.stream().filter(cd -> cd.imports(classId)).count();
     }
 
     public Set<ClassDef> classesThatImport(String fullClassName)
     {
-        return classes.stream().filter(cd -> cd.imports(fullClassName)).collect(Collectors.toSet());
+        return classesThatImport(idOf(fullClassName));
+    }
+
+    public Set<ClassDef> classesThatImport(int classId)
+    {
+        return classes.stream().filter(cd -> cd.imports(classId)).collect(Collectors.toSet());
     }
 
     public long getNumberOfAbstractClasses()
@@ -62,6 +85,14 @@ public final class ModuleSource implements Iterable<ClassDef>
         return classes.stream().filter(ClassDef::isAbstract).count();
     }
 
+    /**
+     * The classes of a module share the {@link SymbolTable} of the analysis, so the first class' table answers for all.
+     */
+    private int idOf(String fullClassName)
+    {
+        return classes.isEmpty() ? SymbolTable.UNKNOWN : classes.get(0).getSymbols().idOf(fullClassName);
+    }
+
     @Override
     public Iterator<ClassDef> iterator()
     {
@@ -0,0 +1,77 @@
+package org.mark.maven.amp.model;
+
+/**
+ * Which {@link ClassDef#getNestedTypes() nested types} count as classes in the metrics of a {@link Component},
+ * selectable through the stability goal's nestedTypes parameter. Nested types never add classes to the dependency
+ * graph, their imports are their owner's.
+ */
+public enum NestedTypePolicy
+{
+    /** Only top level classes count. */
+    TOP_LEVEL
+    {
+        @Override
+        boolean counts(ClassDef nestedType)
+        {
+            return false;
+        }
+    },
+
+    /** Member types, declared in a class body at any depth, count alongside their owner, local classes do not. */
+    MEMBERS
+    {
+        @Override
+        boolean counts(ClassDef nestedType)
+        {
+            return !nestedType.isLocal();
+        }
+    },
+
+    /** Every named type counts, including local classes. */
+    ALL
+    {
+        @Override
+        boolean counts(ClassDef nestedType)
+        {
+            return true;
+        }
+    };
+
+    abstract boolean counts(ClassDef nestedType);
+
+    /**
+     * @param classDefs top level classes.
+     * @return the number of classes, counting the nested types this policy includes.
+     */
+    public int countClasses(Iterable<ClassDef> classDefs)
+    {
+        int numClasses = 0;
+        for(ClassDef classDef : classDefs)
+        {
+            numClasses++;
+            for(ClassDef nestedType : classDef.getNestedTypes())
+            {
+                numClasses += counts(nestedType) ? 1 : 0;
+            }
+        }
+        return numClasses;
+    }
+
+    /**
+     * @param classDefs top level classes.
+     * @return the number of abstract classes and interfaces, counting the nested types this policy includes.
+     */
+    public int countAbstractClasses(Iterable<ClassDef> classDefs)
+    {
+        int numAbstract = 0;
+        for(ClassDef classDef : classDefs)
+        {
+            numAbstract += classDef.isAbstract() ? 1 : 0;
+            for(ClassDef nestedType : classDef.getNestedTypes())
+            {
+                numAbstract += nestedType.isAbstract() && counts(nestedType) ? 1 : 0;
+            }
+        }
+        return numAbstract;
+    }
+}
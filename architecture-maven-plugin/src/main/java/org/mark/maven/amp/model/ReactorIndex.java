@@ -0,0 +1,269 @@
+package org.mark.maven.amp.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reactor wide index of the {@link ClassDef} instances held by a List of {@link Component} instances.
+ *
+ * The index materialises the class level dependency graph once, as a {@link ClassGraph}, and answers every question
+ * about ownership and dependencies from it. The fan in and fan out of every component is calculated in a single pass
+ * over the graph's edges rather than by comparing each component against every other. Component to component
+ * dependencies are memoized as one sorted array of dependency indices per component, packed into a single array, so
+ * memory grows with the number of dependencies rather than the square of the number of components and
+ * {@link #dependsUpon(Component, Component)} is a binary search.
+ */
+public final class ReactorIndex
+{
+    private final List<Component> components;
+    private final Map<Component, Integer> compIndices = new IdentityHashMap<>();
+    private final ClassGraph graph;
+    private final int[] dependencyStarts;
+    private final int[] dependencyTargets;
+
+    /**
+     * @param symbolTable the table every class of the components was interned in.
+     * @param allComponents the components of the reactor.
+     */
+    public ReactorIndex(SymbolTable symbolTable, List<Component> allComponents)
+    {
+        this.components = allComponents;
+        for(int compIndex = 0; compIndex < components.size(); compIndex++)
+        {
+            compIndices.putIfAbsent(components.get(compIndex), compIndex);
+        }
+        this.graph = new ClassGraph(symbolTable, components);
+
+        int numComps = components.size();
+        dependencyStarts = new int[numComps + 1];
+        int[] targets = new int[Math.max(16, numComps)];
+        int numTargets = 0;
+        int[] lastSeenBy = new int[numComps];
+        Arrays.fill(lastSeenBy, -1);
+        for(int compIndex = 0; compIndex < numComps; compIndex++)
+        {
+            lastSeenBy[compIndex] = compIndex;
+            for(int node = graph.componentStart(compIndex); node < graph.componentEnd(compIndex); node++)
+            {
+                for(int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++)
+                {
+                    int target = graph.componentOf(graph.edgeTarget(edge));
+                    if(lastSeenBy[target] != compIndex)
+                    {
+                        lastSeenBy[target] = compIndex;
+                        if(numTargets == targets.length)
+                        {
+                            targets = Arrays.copyOf(targets, numTargets * 2);
+                        }
+                        targets[numTargets++] = target;
+                    }
+                }
+            }
+            Arrays.sort(targets, dependencyStarts[compIndex], numTargets);
+            dependencyStarts[compIndex + 1] = numTargets;
+        }
+        dependencyTargets = Arrays.copyOf(targets, numTargets);
+    }
+
+    /**
+     * @return the class level dependency graph of the indexed components.
+     */
+    public ClassGraph getClassGraph()
+    {
+        return graph;
+    }
+
+    /**
+     * @return the indexed components, in the order of the {@link ClassGraph} component indices.
+     */
+    public List<Component> getComponents()
+    {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * @param fullClassName the fully qualified class name to look up
+     * @return the {@link Component} that owns the given class or null if no component in the reactor contains it.
+     */
+    public Component ownerOf(String fullClassName)
+    {
+        int node = graph.nodeOf(graph.getSymbols().idOf(fullClassName));
+        return node < 0 ? null : components.get(graph.componentOf(node));
+    }
+
+    /**
+     * @param fullClassName the fully qualified class name to look up
+     * @return every class in the reactor that imports the given class.
+     */
+    public Set<ClassDef> importersOf(String fullClassName)
+    {
+        int node = graph.nodeOf(graph.getSymbols().idOf(fullClassName));
+        if(node < 0)
+        {
+            return Collections.emptySet();
+        }
+        Set<ClassDef> importers = new HashSet<>();
+        for(int edge = graph.inEdgeStart(node); edge < graph.inEdgeEnd(node); edge++)
+        {
+            importers.add(graph.classAt(graph.inEdgeSource(edge)));
+        }
+        return importers;
+    }
+
+    /**
+     * @param component a component of the reactor
+     * @param otherComp another component of the reactor
+     * @return whether any class in the component imports a class in the other component. A component never depends
+     *         upon itself.
+     */
+    public boolean dependsUpon(Component component, Component otherComp)
+    {
+        return hasDependency(indexOf(component), indexOf(otherComp));
+    }
+
+    /**
+     * @param component a component of the reactor
+     * @param otherComp another component of the reactor
+     * @return every class in the other component imported by the component, mapped to the classes that import it.
+     */
+    public Map<ClassDef, Set<ClassDef>> dependents(Component component, Component otherComp)
+    {
+        Map<ClassDef, Set<ClassDef>> results = new LinkedHashMap<>();
+        int from = indexOf(component);
+        int to = indexOf(otherComp);
+        if(!hasDependency(from, to))
+        {
+            return results;
+        }
+        for(int node = graph.componentStart(to); node < graph.componentEnd(to); node++)
+        {
+            for(int edge = graph.inEdgeStart(node); edge < graph.inEdgeEnd(node); edge++)
+            {
+                int importer = graph.inEdgeSource(edge);
+                if(graph.componentOf(importer) == from)
+                {
+                    results.computeIfAbsent(graph.classAt(node), cd -> new HashSet<>()).add(graph.classAt(importer));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Calculates the {@link ComponentInstability} of every indexed {@link Component} in a single pass over all
+     * class graph edges. An edge only counts towards fan in and fan out when it crosses a component boundary.
+     *
+     * @return the instability of every component, in the order the components were indexed.
+     */
+    public Map<Component, ComponentInstability> instabilities()
+    {
+        int numComps = components.size();
+        List<List<ClassDef>> fanIns = new ArrayList<>(numComps);
+        List<List<ClassDef>> fanOuts = new ArrayList<>(numComps);
+        for(int compIndex = 0; compIndex < numComps; compIndex++)
+        {
+            fanIns.add(new ArrayList<>());
+            fanOuts.add(new ArrayList<>());
+        }
+
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            int importerComp = graph.componentOf(node);
+            for(int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++)
+            {
+                int owner = graph.componentOf(graph.edgeTarget(edge));
+                if(owner != importerComp)
+                {
+                    ClassDef importer = graph.classAt(node);
+                    fanOuts.get(importerComp).add(importer);
+                    fanIns.get(owner).add(importer);
+                }
+            }
+        }
+
+        // The components depending upon each component, transposed from the dependency arrays in ascending order
+        int[] dependentStarts = new int[numComps + 1];
+        for(int target : dependencyTargets)
+        {
+            dependentStarts[target + 1]++;
+        }
+        for(int compIndex = 0; compIndex < numComps; compIndex++)
+        {
+            dependentStarts[compIndex + 1] += dependentStarts[compIndex];
+        }
+        int[] dependentSources = new int[dependencyTargets.length];
+        int[] nextDependent = Arrays.copyOf(dependentStarts, numComps);
+        for(int compIndex = 0; compIndex < numComps; compIndex++)
+        {
+            for(int dep = dependencyStarts[compIndex]; dep < dependencyStarts[compIndex + 1]; dep++)
+            {
+                dependentSources[nextDependent[dependencyTargets[dep]]++] = compIndex;
+            }
+        }
+
+        Map<Component, ComponentInstability> instabilities = new LinkedHashMap<>();
+        for(int compIndex = 0; compIndex < numComps; compIndex++)
+        {
+            Component component = components.get(compIndex);
+            ComponentDependencies fanIn = new ComponentDependencies(component,
+                                                                    fanIns.get(compIndex),
+                                                                    toComponents(dependentSources,
+                                                                                 dependentStarts[compIndex],
+                                                                                 dependentStarts[compIndex + 1]));
+            ComponentDependencies fanOut = new ComponentDependencies(component,
+                                                                     fanOuts.get(compIndex),
+                                                                     toComponents(dependencyTargets,
+                                                                                  dependencyStarts[compIndex],
+                                                                                  dependencyStarts[compIndex + 1]));
+            instabilities.put(component, new ComponentInstability(component, fanIn, fanOut));
+        }
+        return instabilities;
+    }
+
+    /**
+     * @param component a component of the reactor
+     * @return the index of the component in the {@link ClassGraph}.
+     * @throws IllegalArgumentException if the component was not indexed.
+     */
+    public int indexOf(Component component)
+    {
+        Integer compIndex = compIndices.get(component);
+        if(compIndex == null)
+        {
+            throw new IllegalArgumentException(component + " is not part of the index");
+        }
+        return compIndex;
+    }
+
+    /**
+     * @param compIndex the index of a component.
+     * @return the indices of the components it depends upon, in ascending order.
+     */
+    public int[] dependenciesOf(int compIndex)
+    {
+        return Arrays.copyOfRange(dependencyTargets, dependencyStarts[compIndex], dependencyStarts[compIndex + 1]);
+    }
+
+    private boolean hasDependency(int from, int to)
+    {
+        return Arrays.binarySearch(dependencyTargets, dependencyStarts[from], dependencyStarts[from + 1], to) >= 0;
+    }
+
+    private Set<Component> toComponents(int[] compIndices, int start, int end)
+    {
+        Set<Component> comps = new LinkedHashSet<>();
+        for(int i = start; i < end; i++)
+        {
+            comps.add(components.get(compIndices[i]));
+        }
+        return comps;
+    }
+}
@@ -0,0 +1,96 @@
+package org.mark.maven.amp.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns fully qualified names to dense int identifiers. Every name is held once however many classes import it, and
+ * names are compared by identifier rather than character by character.
+ *
+ * Identifiers start at 0 and are never reused. The table is safe for concurrent use, lookups of names already
+ * interned do not lock. One table is created per analysis and handed to everything that creates or indexes
+ * {@link ClassDef} instances, only identifiers from the same table can be compared with each other. The table is
+ * never cleared, so it lives no longer than the analysis that created it.
+ */
+public final class SymbolTable
+{
+    /** Returned by {@link #idOf(String)} for a name that has never been interned. */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int size;
+
+    /**
+     * @param name the fully qualified name to intern.
+     * @return the identifier of the name, allocating a new one if the name has not been seen before.
+     */
+    public int intern(String name)
+    {
+        Integer id = ids.get(name);
+        if(id != null)
+        {
+            return id;
+        }
+        synchronized(this)
+        {
+            id = ids.get(name);
+            if(id != null)
+            {
+                return id;
+            }
+            if(size == names.length)
+            {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            int newId = size++;
+            names[newId] = name;
+            ids.put(name, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * @param names fully qualified names
+     * @return the set of identifiers of the given names, interning those that have not been seen before.
+     */
+    public ImmutableIntSet internAll(Collection<String> names)
+    {
+        int[] ids = new int[names.size()];
+        int i = 0;
+        for(String name : names)
+        {
+            ids[i++] = intern(name);
+        }
+        return ImmutableIntSet.of(ids);
+    }
+
+    /**
+     * @param name the fully qualified name to look up.
+     * @return the identifier of the name or {@link #UNKNOWN} if it has never been interned.
+     */
+    public int idOf(String name)
+    {
+        Integer id = ids.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * @param id an identifier returned by {@link #intern(String)}.
+     * @return the name the identifier was allocated for.
+     */
+    public String nameOf(int id)
+    {
+        return names[id];
+    }
+
+    /**
+     * @return the number of names interned so far, every identifier is less than this.
+     */
+    public int size()
+    {
+        return ids.size();
+    }
+}
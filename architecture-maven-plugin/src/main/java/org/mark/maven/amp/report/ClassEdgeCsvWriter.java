@@ -0,0 +1,45 @@
+package org.mark.maven.amp.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import org.mark.maven.amp.model.ClassGraph;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * Every edge of the {@link ClassGraph} as importing class, importing component, imported class and imported
+ * component, after a header line. Edges are written straight from the graph's arrays.
+ */
+public final class ClassEdgeCsvWriter implements ReportWriter
+{
+    @Override
+    public void write(ReactorIndex index, Map<Component, ComponentInstability> instabilities, Writer out)
+        throws IOException
+    {
+        ClassGraph graph = index.getClassGraph();
+        List<Component> components = index.getComponents();
+        out.write("importer,importerComponent,imported,importedComponent");
+        out.write(System.lineSeparator());
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            String importer = graph.classAt(node).getFullQualName();
+            String importerComp = components.get(graph.componentOf(node)).getName();
+            for(int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++)
+            {
+                int target = graph.edgeTarget(edge);
+                out.write(importer);
+                out.write(',');
+                out.write(importerComp);
+                out.write(',');
+                out.write(graph.classAt(target).getFullQualName());
+                out.write(',');
+                out.write(components.get(graph.componentOf(target)).getName());
+                out.write(System.lineSeparator());
+            }
+        }
+    }
+}
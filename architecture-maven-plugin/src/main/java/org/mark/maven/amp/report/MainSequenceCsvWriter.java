@@ -0,0 +1,34 @@
+package org.mark.maven.amp.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * One line per component of name, instability, abstraction and distance from the main sequence, without a header.
+ * This is the format read by the main sequence viewer.
+ */
+public final class MainSequenceCsvWriter implements ReportWriter
+{
+    @Override
+    public void write(ReactorIndex index, Map<Component, ComponentInstability> instabilities, Writer out)
+        throws IOException
+    {
+        for(ComponentInstability instability : instabilities.values())
+        {
+            Component comp = instability.getComp();
+            out.write(comp.getName());
+            out.write(',');
+            out.write(Double.toString(instability.getInstabilityValue()));
+            out.write(',');
+            out.write(Double.toString(comp.getAbstraction()));
+            out.write(',');
+            out.write(Double.toString(instability.getDistance()));
+            out.write(System.lineSeparator());
+        }
+    }
+}
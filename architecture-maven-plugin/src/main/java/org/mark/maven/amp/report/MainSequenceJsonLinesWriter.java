@@ -0,0 +1,63 @@
+package org.mark.maven.amp.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * One JSON object per line and component, holding its class counts, fan in and fan out as well as its main sequence
+ * coordinates.
+ */
+public final class MainSequenceJsonLinesWriter implements ReportWriter
+{
+    @Override
+    public void write(ReactorIndex index, Map<Component, ComponentInstability> instabilities, Writer out)
+        throws IOException
+    {
+        for(ComponentInstability instability : instabilities.values())
+        {
+            Component comp = instability.getComp();
+            out.write("{\"component\":");
+            writeString(comp.getName(), out);
+            out.write(",\"classes\":" + comp.getNumClasses());
+            out.write(",\"abstractClasses\":" + comp.getNumAbstractClasses());
+            out.write(",\"fanIn\":" + instability.getFanIn());
+            out.write(",\"fanOut\":" + instability.getFanOut());
+            out.write(",\"instability\":" + instability.getInstabilityValue());
+            out.write(",\"abstraction\":" + comp.getAbstraction());
+            out.write(",\"distance\":" + instability.getDistance());
+            out.write('}');
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Writes the value as a quoted JSON string.
+     */
+    private static void writeString(String value, Writer out) throws IOException
+    {
+        out.write('"');
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\')
+            {
+                out.write('\\');
+                out.write(c);
+            }
+            else if(c < 0x20)
+            {
+                out.write(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,81 @@
+package org.mark.maven.amp.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * The {@link ReportWriter} implementations selectable through the stability goal's reportFormats parameter and the
+ * file each one writes.
+ */
+public enum ReportFormat
+{
+    /** Main sequence coordinates per component, see {@link MainSequenceCsvWriter}. */
+    CSV("mainsequence.csv")
+    {
+        @Override
+        public ReportWriter createReportWriter()
+        {
+            return new MainSequenceCsvWriter();
+        }
+    },
+
+    /** Component metrics as JSON Lines, see {@link MainSequenceJsonLinesWriter}. */
+    JSONL("mainsequence.jsonl")
+    {
+        @Override
+        public ReportWriter createReportWriter()
+        {
+            return new MainSequenceJsonLinesWriter();
+        }
+    },
+
+    /** Every class level dependency in the reactor, see {@link ClassEdgeCsvWriter}. */
+    CLASS_EDGES("class-edges.csv")
+    {
+        @Override
+        public ReportWriter createReportWriter()
+        {
+            return new ClassEdgeCsvWriter();
+        }
+    };
+
+    private final String fileName;
+
+    private ReportFormat(String reportFileName)
+    {
+        this.fileName = reportFileName;
+    }
+
+    public abstract ReportWriter createReportWriter();
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    /**
+     * Streams the report through a buffered writer into its file in the given directory, replacing any previous one.
+     *
+     * @param outputDir the directory to write to, created if missing.
+     * @return the path of the written report.
+     * @throws IOException if the report cannot be written.
+     */
+    public Path writeTo(Path outputDir, ReactorIndex index, Map<Component, ComponentInstability> instabilities)
+        throws IOException
+    {
+        Path reportPath = Files.createDirectories(outputDir).resolve(fileName);
+        try (Writer out = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8))
+        {
+            createReportWriter().write(index, instabilities, out);
+        }
+        return reportPath;
+    }
+}
@@ -0,0 +1,24 @@
+package org.mark.maven.amp.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+/**
+ * Writes one report of an analysed reactor. Rows are written to the writer as they are produced, a report is never
+ * held in memory as a whole.
+ */
+public interface ReportWriter
+{
+    /**
+     * @param index the index of the analysed reactor.
+     * @param instabilities the instability of every component in the index, in index order.
+     * @param out where to write the report, the caller buffers and closes it.
+     * @throws IOException if writing fails.
+     */
+    void write(ReactorIndex index, Map<Component, ComponentInstability> instabilities, Writer out) throws IOException;
+}
@@ -0,0 +1,269 @@
+package org.mark.maven.amp.scanner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mark.maven.amp.ClassDefCreator;
+import org.mark.maven.amp.javaparser.JavaParserClassDefCreator;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.SymbolTable;
+
+/**
+ * {@link ClassDefCreator} that tokenizes source files instead of parsing them into an AST.
+ *
+ * Only the package declaration, the imports, braces and the keywords that introduce class, interface, enum, record and
+ * annotation type declarations are interpreted, everything else is skipped token by token. This produces the same
+ * {@link ClassDef} instances as the {@link JavaParserClassDefCreator}, with nested and local types as children of their
+ * top level class, at a fraction of the cost. Source that does not compile is not rejected, the scanner reports
+ * whatever declarations it recognises.
+ */
+public final class HeaderScanningClassDefCreator implements ClassDefCreator
+{
+    private final SymbolTable symbols;
+
+    /**
+     * @param symbolTable the table the names of the classes and their imports are interned in.
+     */
+    public HeaderScanningClassDefCreator(SymbolTable symbolTable)
+    {
+        this.symbols = symbolTable;
+    }
+
+    @Override
+    public List<ClassDef> createClassDefFor(Path srcFilePath) throws ClassDefCreationException
+    {
+        try (Reader in = new BufferedReader(new InputStreamReader(Files.newInputStream(srcFilePath),
+                                                                  StandardCharsets.UTF_8)))
+        {
+            return scan(new JavaTokenizer(in));
+        }
+        catch (IOException e)
+        {
+            throw new ClassDefCreationException("Exception scanning src file " + srcFilePath, e);
+        }
+    }
+
+    /**
+     * A brace opened by the type declaration just read, or by anything else when name is null.
+     */
+    private static final class Scope
+    {
+        private final String name;
+        private final boolean isAbstract;
+        private final List<ClassDef> nestedTypes;
+
+        private Scope(String binaryName, boolean abstractType, List<ClassDef> nested)
+        {
+            this.name = binaryName;
+            this.isAbstract = abstractType;
+            this.nestedTypes = nested;
+        }
+    }
+
+    private static final Scope BLOCK = new Scope(null, false, null);
+
+    private List<ClassDef> scan(JavaTokenizer tokens) throws IOException
+    {
+        List<ClassDef> classDefs = new ArrayList<>();
+        Set<String> imports = new HashSet<>();
+        // Imports precede the types so every type in the file can share one set, interned on first use
+        ImmutableIntSet importIds = null;
+        String pkg = null;
+        boolean abstractModifier = false;
+        // Class literals (Foo.class) reuse the declaration keywords, annotation declarations are @interface.
+        boolean afterDot = false;
+        boolean afterAt = false;
+        // record is only a keyword when a type name follows it, anywhere else it is an ordinary identifier
+        boolean afterRecord = false;
+        Deque<Scope> scopes = new ArrayDeque<>();
+        Scope declared = null;
+        List<ClassDef> nestedTypes = null;
+        Map<String, Integer> localClassCounts = new HashMap<>();
+
+        while(tokens.next() != JavaTokenizer.EOF)
+        {
+            if(tokens.kind() == JavaTokenizer.PUNCT)
+            {
+                if(tokens.isPunct('{'))
+                {
+                    scopes.push(declared == null ? BLOCK : declared);
+                    declared = null;
+                }
+                else if(tokens.isPunct('}') && !scopes.isEmpty())
+                {
+                    Scope closed = scopes.pop();
+                    if(closed.nestedTypes != null)
+                    {
+                        classDefs.add(new ClassDef(symbols, closed.name, importIds, closed.isAbstract,
+                                                   closed.nestedTypes));
+                    }
+                }
+                if(tokens.isPunct(';') || tokens.isPunct('{') || tokens.isPunct('}'))
+                {
+                    abstractModifier = false;
+                }
+                afterDot = tokens.isPunct('.');
+                afterAt = tokens.isPunct('@');
+                afterRecord = false;
+                continue;
+            }
+
+            boolean recordKeyword = false;
+            if(tokens.kind() == JavaTokenizer.IDENT && !afterDot)
+            {
+                String typeName = null;
+                boolean isAbstract = false;
+                if(afterRecord)
+                {
+                    typeName = tokens.text();
+                }
+                else if(afterAt)
+                {
+                    if(tokens.is("interface") && tokens.next() == JavaTokenizer.IDENT)
+                    {
+                        typeName = tokens.text();
+                        isAbstract = true;
+                    }
+                }
+                else if(tokens.is("package") && pkg == null)
+                {
+                    pkg = readQualifiedName(tokens);
+                }
+                else if(tokens.is("import"))
+                {
+                    imports.add(readImportName(tokens));
+                }
+                else if(tokens.is("abstract"))
+                {
+                    abstractModifier = true;
+                }
+                else if(tokens.is("class") || tokens.is("interface") || tokens.is("enum"))
+                {
+                    isAbstract = tokens.is("interface") || (tokens.is("class") && abstractModifier);
+                    if(tokens.next() == JavaTokenizer.IDENT)
+                    {
+                        typeName = tokens.text();
+                    }
+                }
+                else if(tokens.is("record"))
+                {
+                    recordKeyword = true;
+                }
+
+                if(typeName != null)
+                {
+                    if(importIds == null)
+                    {
+                        importIds = symbols.internAll(imports);
+                    }
+                    declared = declare(typeName, isAbstract, pkg, scopes, localClassCounts);
+                    if(declared.nestedTypes != null)
+                    {
+                        nestedTypes = declared.nestedTypes;
+                    }
+                    else if(nestedTypes != null)
+                    {
+                        nestedTypes.add(new ClassDef(symbols, declared.name, importIds, isAbstract));
+                    }
+                    abstractModifier = false;
+                }
+            }
+            afterDot = false;
+            afterAt = false;
+            afterRecord = recordKeyword;
+        }
+        // A top level type left open by a truncated file is still reported
+        Scope unclosed = scopes.peekLast();
+        if(unclosed != null && unclosed.nestedTypes != null)
+        {
+            classDefs.add(new ClassDef(symbols, unclosed.name, importIds, unclosed.isAbstract, unclosed.nestedTypes));
+        }
+        return classDefs;
+    }
+
+    /**
+     * Names a type declaration by its place in the open scopes: a top level type by its package, a type in a type body
+     * as Outer$Inner and a type in any other block as Outer$1Local, the way javac names their class files. Only a top
+     * level scope collects nested types.
+     */
+    private static Scope declare(String simpleName, boolean isAbstract, String pkg, Deque<Scope> scopes,
+                                 Map<String, Integer> localClassCounts)
+    {
+        Scope enclosing = null;
+        for(Scope scope : scopes)
+        {
+            if(scope != BLOCK)
+            {
+                enclosing = scope;
+                break;
+            }
+        }
+        if(enclosing == null)
+        {
+            String name = pkg == null ? simpleName : pkg + "." + simpleName;
+            return new Scope(name, isAbstract, new ArrayList<>());
+        }
+        String name = enclosing.name + "$" + simpleName;
+        if(scopes.peek() == BLOCK)
+        {
+            int index = localClassCounts.merge(name, 1, Integer::sum);
+            name = enclosing.name + "$" + index + simpleName;
+        }
+        return new Scope(name, isAbstract, null);
+    }
+
+    /**
+     * Reads a dotted name up to the terminating semicolon.
+     */
+    private static String readQualifiedName(JavaTokenizer tokens) throws IOException
+    {
+        StringBuilder name = new StringBuilder();
+        while(tokens.next() != JavaTokenizer.EOF && !tokens.isPunct(';'))
+        {
+            if(tokens.kind() == JavaTokenizer.IDENT || tokens.isPunct('.'))
+            {
+                name.append(tokens.text());
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Reads the name of an import the way JavaParser reports it, without the static keyword or a trailing .*
+     */
+    private static String readImportName(JavaTokenizer tokens) throws IOException
+    {
+        StringBuilder name = new StringBuilder();
+        while(tokens.next() != JavaTokenizer.EOF && !tokens.isPunct(';'))
+        {
+            if(tokens.is("static") && name.length() == 0)
+            {
+                continue;
+            }
+            if(tokens.kind() == JavaTokenizer.IDENT || tokens.isPunct('.'))
+            {
+                name.append(tokens.text());
+            }
+        }
+        int end = name.length();
+        if(end > 0 && name.charAt(end - 1) == '.')
+        {
+            name.setLength(end - 1);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,238 @@
+package org.mark.maven.amp.scanner;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal Java tokenizer. It splits a source file into identifiers (keywords included), literals and single character
+ * punctuation, and drops whitespace and comments. String, text block, character and numeric literals are consumed but
+ * their text is not kept, so keywords and braces inside them are never reported.
+ *
+ * The current token text is held in a reused buffer, a String is only created when {@link #text()} is called.
+ */
+final class JavaTokenizer
+{
+    static final int EOF = -1;
+    static final int IDENT = 0;
+    static final int PUNCT = 1;
+    static final int LITERAL = 2;
+
+    private final Reader in;
+    private char[] buffer = new char[64];
+    private int length;
+    private int kind = EOF;
+    private int pushedBack = -2;
+
+    JavaTokenizer(Reader reader)
+    {
+        this.in = reader;
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the kind of the new current token, {@link #EOF} at the end of the input.
+     * @throws IOException if reading fails.
+     */
+    int next() throws IOException
+    {
+        length = 0;
+        int c = skipWhitespaceAndComments();
+        if(c < 0)
+        {
+            kind = EOF;
+        }
+        else if(Character.isJavaIdentifierStart(c))
+        {
+            while(c >= 0 && Character.isJavaIdentifierPart(c))
+            {
+                append((char) c);
+                c = read();
+            }
+            unread(c);
+            kind = IDENT;
+        }
+        else if(Character.isDigit(c))
+        {
+            while(c >= 0 && (Character.isJavaIdentifierPart(c) || c == '.'))
+            {
+                c = read();
+            }
+            unread(c);
+            kind = LITERAL;
+        }
+        else if(c == '"')
+        {
+            skipStringOrTextBlock();
+            kind = LITERAL;
+        }
+        else if(c == '\'')
+        {
+            skipQuoted(c, read());
+            kind = LITERAL;
+        }
+        else
+        {
+            append((char) c);
+            kind = PUNCT;
+        }
+        return kind;
+    }
+
+    int kind()
+    {
+        return kind;
+    }
+
+    /**
+     * @param word the identifier or keyword to compare against.
+     * @return whether the current token is an identifier equal to the given word, without creating a String.
+     */
+    boolean is(String word)
+    {
+        if(kind != IDENT || length != word.length())
+        {
+            return false;
+        }
+        for(int i = 0; i < length; i++)
+        {
+            if(buffer[i] != word.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param c the punctuation character to compare against.
+     * @return whether the current token is the given punctuation character.
+     */
+    boolean isPunct(char c)
+    {
+        return kind == PUNCT && buffer[0] == c;
+    }
+
+    String text()
+    {
+        return new String(buffer, 0, length);
+    }
+
+    private int skipWhitespaceAndComments() throws IOException
+    {
+        int c = read();
+        while(c >= 0)
+        {
+            if(Character.isWhitespace(c))
+            {
+                c = read();
+            }
+            else if(c == '/')
+            {
+                int following = read();
+                if(following == '/')
+                {
+                    while(c >= 0 && c != '\n' && c != '\r')
+                    {
+                        c = read();
+                    }
+                }
+                else if(following == '*')
+                {
+                    int previous = 0;
+                    c = read();
+                    while(c >= 0 && !(previous == '*' && c == '/'))
+                    {
+                        previous = c;
+                        c = read();
+                    }
+                    c = read();
+                }
+                else
+                {
+                    unread(following);
+                    return c;
+                }
+            }
+            else
+            {
+                return c;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Skips the rest of a literal after its opening quote: an empty string, a text block running to the closing
+     * three quotes, or a single line string.
+     */
+    private void skipStringOrTextBlock() throws IOException
+    {
+        int c = read();
+        if(c != '"')
+        {
+            skipQuoted('"', c);
+            return;
+        }
+        c = read();
+        if(c != '"')
+        {
+            // The empty string
+            unread(c);
+            return;
+        }
+        int closingQuotes = 0;
+        while(closingQuotes < 3 && (c = read()) >= 0)
+        {
+            if(c == '\\')
+            {
+                read();
+                closingQuotes = 0;
+            }
+            else
+            {
+                closingQuotes = c == '"' ? closingQuotes + 1 : 0;
+            }
+        }
+    }
+
+    private void skipQuoted(int quote, int first) throws IOException
+    {
+        int c = first;
+        while(c >= 0 && c != quote && c != '\n')
+        {
+            if(c == '\\')
+            {
+                read();
+            }
+            c = read();
+        }
+    }
+
+    private void append(char c)
+    {
+        if(length == buffer.length)
+        {
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length++] = c;
+    }
+
+    private int read() throws IOException
+    {
+        if(pushedBack != -2)
+        {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void unread(int c)
+    {
+        pushedBack = c;
+    }
+}
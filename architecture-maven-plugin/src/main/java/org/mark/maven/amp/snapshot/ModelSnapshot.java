@@ -0,0 +1,485 @@
+package org.mark.maven.amp.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ClassGraph;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.model.SymbolTable;
+
+/**
+ * The analysed model of a reactor saved as one binary file: components with their metrics, classes, imports and the
+ * names they refer to. The file is memory mapped when opened and every value is read in place on demand, so opening
+ * even a very large snapshot costs no more than mapping it. A snapshot that is about to be replaced is read into memory
+ * instead, see {@link #read(Path)}.
+ *
+ * All sections are fixed size records at offsets that follow from the counts in the header, big endian, with every
+ * int and double at an aligned offset:
+ * <ol>
+ * <li>header, 8 ints: magic, version, then the number of components, classes, imports, component dependencies,
+ * symbols and symbol data bytes</li>
+ * <li>components, 56 bytes each: first class, end class, abstract classes, fan in, fan out, first dependency, end
+ * dependency, an unused int, then instability, abstraction and distance as doubles. The name of component n is
+ * symbol n</li>
+ * <li>classes, 16 bytes each: name symbol, flags, first import, end import. Classes declared in the same file share
+ * one range of imports. The nested types of a top level class follow it, flagged as nested, and share its imports.
+ * Component class ranges count these records rather than top level classes</li>
+ * <li>imports, one int symbol each</li>
+ * <li>component dependencies, one int component index each</li>
+ * <li>symbol offsets, numSymbols + 1 ints into the symbol data</li>
+ * <li>symbol data, the UTF-8 bytes of every name</li>
+ * </ol>
+ * A mapped file is limited to 2GB, far beyond the size of a 500k class reactor.
+ */
+public final class ModelSnapshot
+{
+    private static final int MAGIC = 0x414d5053; // AMPS
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int COMPONENT_BYTES = 56;
+    private static final int CLASS_BYTES = 16;
+    private static final int FLAG_ABSTRACT = 1;
+    private static final int FLAG_NESTED = 2;
+
+    private final ByteBuffer buffer;
+    private final int numComponents;
+    private final int numClasses;
+    private final int numSymbols;
+    private final int classesOffset;
+    private final int importsOffset;
+    private final int dependenciesOffset;
+    private final int symbolOffsetsOffset;
+    private final int symbolDataOffset;
+
+    private ModelSnapshot(ByteBuffer snapshot, Path snapshotFile) throws IOException
+    {
+        this.buffer = snapshot;
+        if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+        {
+            throw new IOException(snapshotFile + " is not a snapshot of this version");
+        }
+        numComponents = buffer.getInt(8);
+        numClasses = buffer.getInt(12);
+        int numImports = buffer.getInt(16);
+        int numDependencies = buffer.getInt(20);
+        numSymbols = buffer.getInt(24);
+        int symbolDataBytes = buffer.getInt(28);
+
+        long classes = HEADER_BYTES + (long) numComponents * COMPONENT_BYTES;
+        long imports = classes + (long) numClasses * CLASS_BYTES;
+        long dependencies = imports + numImports * 4L;
+        long symbolOffsets = dependencies + numDependencies * 4L;
+        long symbolData = symbolOffsets + (numSymbols + 1) * 4L;
+        if((numComponents | numClasses | numImports | numDependencies | symbolDataBytes) < 0
+           || numSymbols < numComponents || symbolData + symbolDataBytes != buffer.capacity())
+        {
+            throw new IOException(snapshotFile + " is truncated or corrupt");
+        }
+        classesOffset = (int) classes;
+        importsOffset = (int) imports;
+        dependenciesOffset = (int) dependencies;
+        symbolOffsetsOffset = (int) symbolOffsets;
+        symbolDataOffset = (int) symbolData;
+    }
+
+    /**
+     * Maps a snapshot file.
+     *
+     * @param snapshotFile the file to open.
+     * @return the snapshot, which stays valid after the file is closed.
+     * @throws IOException if the file cannot be read or is not a snapshot of this version.
+     */
+    public static ModelSnapshot open(Path snapshotFile) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ))
+        {
+            if(channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException(snapshotFile + " is too large to be a snapshot");
+            }
+            return new ModelSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), snapshotFile);
+        }
+    }
+
+    /**
+     * Reads a snapshot file into memory rather than mapping it. A mapping holds on to the file until the buffer is
+     * collected, which on Windows stops the file from being replaced, so a snapshot read in full before the same file
+     * is written again is read this way.
+     *
+     * @param snapshotFile the file to read.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot of this version.
+     */
+    public static ModelSnapshot read(Path snapshotFile) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ))
+        {
+            if(channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException(snapshotFile + " is too large to be a snapshot");
+            }
+            ByteBuffer snapshot = ByteBuffer.allocate((int) channel.size());
+            while(snapshot.hasRemaining())
+            {
+                if(channel.read(snapshot) < 0)
+                {
+                    throw new EOFException(snapshotFile + " truncated while reading");
+                }
+            }
+            return new ModelSnapshot(snapshot, snapshotFile);
+        }
+    }
+
+    public int getNumComponents()
+    {
+        return numComponents;
+    }
+
+    public int getNumClasses()
+    {
+        return numClasses;
+    }
+
+    public int getNumSymbols()
+    {
+        return numSymbols;
+    }
+
+    /**
+     * @param symbol a symbol of the snapshot.
+     * @return the name of the symbol.
+     */
+    public String symbol(int symbol)
+    {
+        int start = buffer.getInt(symbolOffsetsOffset + symbol * 4);
+        int end = buffer.getInt(symbolOffsetsOffset + (symbol + 1) * 4);
+        byte[] utf8 = new byte[end - start];
+        ByteBuffer data = buffer.duplicate();
+        data.position(symbolDataOffset + start);
+        data.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    public String componentName(int comp)
+    {
+        return symbol(comp);
+    }
+
+    /**
+     * @return the first class of the component, its classes run up to {@link #componentClassEnd(int)}.
+     */
+    public int componentClassStart(int comp)
+    {
+        return componentInt(comp, 0);
+    }
+
+    public int componentClassEnd(int comp)
+    {
+        return componentInt(comp, 1);
+    }
+
+    public int numAbstractClasses(int comp)
+    {
+        return componentInt(comp, 2);
+    }
+
+    public int fanIn(int comp)
+    {
+        return componentInt(comp, 3);
+    }
+
+    public int fanOut(int comp)
+    {
+        return componentInt(comp, 4);
+    }
+
+    /**
+     * @return the indices of the components the component depends upon.
+     */
+    public int[] componentDependencies(int comp)
+    {
+        return readInts(dependenciesOffset, componentInt(comp, 5), componentInt(comp, 6));
+    }
+
+    public double instability(int comp)
+    {
+        return buffer.getDouble(componentOffset(comp) + 32);
+    }
+
+    public double abstraction(int comp)
+    {
+        return buffer.getDouble(componentOffset(comp) + 40);
+    }
+
+    public double distance(int comp)
+    {
+        return buffer.getDouble(componentOffset(comp) + 48);
+    }
+
+    public String className(int classIndex)
+    {
+        return symbol(buffer.getInt(classOffset(classIndex)));
+    }
+
+    public boolean isAbstract(int classIndex)
+    {
+        return (buffer.getInt(classOffset(classIndex) + 4) & FLAG_ABSTRACT) != 0;
+    }
+
+    /**
+     * @return whether the class is a nested type of the closest preceding top level class.
+     */
+    public boolean isNested(int classIndex)
+    {
+        return (buffer.getInt(classOffset(classIndex) + 4) & FLAG_NESTED) != 0;
+    }
+
+    /**
+     * @return the symbols of the names the class imports.
+     */
+    public int[] classImports(int classIndex)
+    {
+        int offset = classOffset(classIndex);
+        return readInts(importsOffset, buffer.getInt(offset + 8), buffer.getInt(offset + 12));
+    }
+
+    /**
+     * Recreates the {@link ClassDef} instances of a component. Classes that shared imports in the analysed model share
+     * them again.
+     *
+     * @param symbols the table of the analysis the classes are recreated for.
+     * @param comp a component of the snapshot.
+     * @return the classes of the component in the order they were analysed.
+     */
+    public List<ClassDef> classDefs(SymbolTable symbols, int comp)
+    {
+        List<ClassDef> classDefs = new ArrayList<>(componentClassEnd(comp) - componentClassStart(comp));
+        Map<Long, ImmutableIntSet> importSets = new HashMap<>();
+        int classIndex = componentClassStart(comp);
+        while(classIndex < componentClassEnd(comp))
+        {
+            int offset = classOffset(classIndex);
+            long importRange = (long) buffer.getInt(offset + 8) << 32 | buffer.getInt(offset + 12);
+            ImmutableIntSet importIds = importSets.get(importRange);
+            if(importIds == null)
+            {
+                Set<String> imports = new HashSet<>();
+                for(int importSymbol : classImports(classIndex))
+                {
+                    imports.add(symbol(importSymbol));
+                }
+                importIds = symbols.internAll(imports);
+                importSets.put(importRange, importIds);
+            }
+            int topLevel = classIndex++;
+            List<ClassDef> nestedTypes = new ArrayList<>();
+            for(; classIndex < componentClassEnd(comp) && isNested(classIndex); classIndex++)
+            {
+                nestedTypes.add(new ClassDef(symbols, className(classIndex), importIds, isAbstract(classIndex)));
+            }
+            classDefs.add(new ClassDef(symbols, className(topLevel), importIds, isAbstract(topLevel), nestedTypes));
+        }
+        return classDefs;
+    }
+
+    private int componentOffset(int comp)
+    {
+        return HEADER_BYTES + comp * COMPONENT_BYTES;
+    }
+
+    private int componentInt(int comp, int field)
+    {
+        return buffer.getInt(componentOffset(comp) + field * 4);
+    }
+
+    private int classOffset(int classIndex)
+    {
+        return classesOffset + classIndex * CLASS_BYTES;
+    }
+
+    private int[] readInts(int sectionOffset, int start, int end)
+    {
+        int[] values = new int[end - start];
+        for(int i = 0; i < values.length; i++)
+        {
+            values[i] = buffer.getInt(sectionOffset + (start + i) * 4);
+        }
+        return values;
+    }
+
+    /**
+     * Writes the snapshot of an analysed reactor, replacing the file.
+     *
+     * @param snapshotFile the file to write, its directory is created if missing.
+     * @param index the index of the reactor.
+     * @param instabilities the instability of every component in the index.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path snapshotFile, ReactorIndex index, Map<Component, ComponentInstability> instabilities)
+        throws IOException
+    {
+        ClassGraph graph = index.getClassGraph();
+        List<Component> components = index.getComponents();
+        SymbolTable symbols = graph.getSymbols();
+
+        // Component names come first, then every name the classes use, renumbered densely in first use order
+        List<byte[]> symbolBytes = new ArrayList<>();
+        for(Component comp : components)
+        {
+            symbolBytes.add(comp.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        int[] localSymbol = new int[symbols.size()];
+        Arrays.fill(localSymbol, -1);
+        Map<ImmutableIntSet, Integer> importStarts = new IdentityHashMap<>();
+        List<int[]> importSets = new ArrayList<>();
+        int numImports = 0;
+        int numRecords = 0;
+        for(int node = 0; node < graph.getNumClasses(); node++)
+        {
+            ClassDef classDef = graph.classAt(node);
+            addSymbol(classDef.getId(), localSymbol, symbolBytes, symbols);
+            numRecords += 1 + classDef.getNestedTypes().size();
+            for(ClassDef nestedType : classDef.getNestedTypes())
+            {
+                addSymbol(nestedType.getId(), localSymbol, symbolBytes, symbols);
+            }
+            if(!importStarts.containsKey(classDef.getImportIds()))
+            {
+                int[] ids = classDef.getImportIds().toArray();
+                Arrays.sort(ids);
+                for(int importId : ids)
+                {
+                    addSymbol(importId, localSymbol, symbolBytes, symbols);
+                }
+                importStarts.put(classDef.getImportIds(), numImports);
+                importSets.add(ids);
+                numImports += ids.length;
+            }
+        }
+        int numDependencies = 0;
+        for(Component comp : components)
+        {
+            numDependencies += instabilities.get(comp).getOutCompDeps().size();
+        }
+        int symbolDataBytes = 0;
+        for(byte[] bytes : symbolBytes)
+        {
+            symbolDataBytes += bytes.length;
+        }
+
+        Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+        Path tmpFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile),
+                                                                                  1 << 16)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(components.size());
+            out.writeInt(numRecords);
+            out.writeInt(numImports);
+            out.writeInt(numDependencies);
+            out.writeInt(symbolBytes.size());
+            out.writeInt(symbolDataBytes);
+
+            int dependency = 0;
+            int record = 0;
+            for(int comp = 0; comp < components.size(); comp++)
+            {
+                Component component = components.get(comp);
+                ComponentInstability instability = instabilities.get(component);
+                out.writeInt(record);
+                for(int node = graph.componentStart(comp); node < graph.componentEnd(comp); node++)
+                {
+                    record += 1 + graph.classAt(node).getNestedTypes().size();
+                }
+                out.writeInt(record);
+                out.writeInt((int) component.getNumAbstractClasses());
+                out.writeInt(instability.getFanIn());
+                out.writeInt(instability.getFanOut());
+                out.writeInt(dependency);
+                dependency += instability.getOutCompDeps().size();
+                out.writeInt(dependency);
+                out.writeInt(0);
+                out.writeDouble(instability.getInstabilityValue());
+                out.writeDouble(component.getAbstraction());
+                out.writeDouble(instability.getDistance());
+            }
+
+            for(int node = 0; node < graph.getNumClasses(); node++)
+            {
+                ClassDef classDef = graph.classAt(node);
+                int firstImport = importStarts.get(classDef.getImportIds());
+                out.writeInt(localSymbol[classDef.getId()]);
+                out.writeInt(classDef.isAbstract() ? FLAG_ABSTRACT : 0);
+                out.writeInt(firstImport);
+                out.writeInt(firstImport + classDef.getImportIds().size());
+                for(ClassDef nestedType : classDef.getNestedTypes())
+                {
+                    out.writeInt(localSymbol[nestedType.getId()]);
+                    out.writeInt(FLAG_NESTED | (nestedType.isAbstract() ? FLAG_ABSTRACT : 0));
+                    out.writeInt(firstImport);
+                    out.writeInt(firstImport + classDef.getImportIds().size());
+                }
+            }
+
+            for(int[] ids : importSets)
+            {
+                for(int importId : ids)
+                {
+                    out.writeInt(localSymbol[importId]);
+                }
+            }
+
+            for(Component comp : components)
+            {
+                for(Component target : instabilities.get(comp).getOutCompDeps())
+                {
+                    out.writeInt(index.indexOf(target));
+                }
+            }
+
+            int symbolOffset = 0;
+            out.writeInt(symbolOffset);
+            for(byte[] bytes : symbolBytes)
+            {
+                symbolOffset += bytes.length;
+                out.writeInt(symbolOffset);
+            }
+            for(byte[] bytes : symbolBytes)
+            {
+                out.write(bytes);
+            }
+        }
+        Files.move(tmpFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void addSymbol(int symbolId, int[] localSymbol, List<byte[]> symbolBytes, SymbolTable symbols)
+    {
+        if(localSymbol[symbolId] < 0)
+        {
+            localSymbol[symbolId] = symbolBytes.size();
+            symbolBytes.add(symbols.nameOf(symbolId).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
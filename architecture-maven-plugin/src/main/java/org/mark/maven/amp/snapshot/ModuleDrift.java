@@ -0,0 +1,141 @@
+package org.mark.maven.amp.snapshot;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * How the metrics and component dependencies of one module moved between two snapshots. Metrics of a module missing
+ * from one of the snapshots are NaN on that side.
+ */
+public final class ModuleDrift
+{
+    private final String name;
+    private final double previousInstability;
+    private final double instability;
+    private final double previousAbstraction;
+    private final double abstraction;
+    private final double previousDistance;
+    private final double distance;
+    private final Set<String> addedDependencies;
+    private final Set<String> removedDependencies;
+
+    ModuleDrift(String moduleName, double[] previousMetrics, double[] metrics, Set<String> added, Set<String> removed)
+    {
+        this.name = moduleName;
+        this.previousInstability = previousMetrics[0];
+        this.previousAbstraction = previousMetrics[1];
+        this.previousDistance = previousMetrics[2];
+        this.instability = metrics[0];
+        this.abstraction = metrics[1];
+        this.distance = metrics[2];
+        this.addedDependencies = added;
+        this.removedDependencies = removed;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public double getPreviousInstability()
+    {
+        return previousInstability;
+    }
+
+    public double getInstability()
+    {
+        return instability;
+    }
+
+    public double getPreviousAbstraction()
+    {
+        return previousAbstraction;
+    }
+
+    public double getAbstraction()
+    {
+        return abstraction;
+    }
+
+    public double getPreviousDistance()
+    {
+        return previousDistance;
+    }
+
+    public double getDistance()
+    {
+        return distance;
+    }
+
+    /**
+     * @return how much further from the main sequence the module has moved, negative when it moved closer and NaN
+     *         when the module is only in one snapshot.
+     */
+    public double getDistanceIncrease()
+    {
+        return distance - previousDistance;
+    }
+
+    /**
+     * @return the names of the modules depended upon now but not before.
+     */
+    public Set<String> getAddedDependencies()
+    {
+        return Collections.unmodifiableSet(addedDependencies);
+    }
+
+    /**
+     * @return the names of the modules depended upon before but not now.
+     */
+    public Set<String> getRemovedDependencies()
+    {
+        return Collections.unmodifiableSet(removedDependencies);
+    }
+
+    public boolean isAdded()
+    {
+        return Double.isNaN(previousInstability);
+    }
+
+    public boolean isRemoved()
+    {
+        return Double.isNaN(instability);
+    }
+
+    /**
+     * @return whether any metric or dependency of the module differs between the snapshots.
+     */
+    public boolean hasChanged()
+    {
+        return Double.compare(previousInstability, instability) != 0
+               || Double.compare(previousAbstraction, abstraction) != 0
+               || Double.compare(previousDistance, distance) != 0
+               || !addedDependencies.isEmpty() || !removedDependencies.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        if(isAdded())
+        {
+            return name + " added, I=" + instability + " A=" + abstraction + " D=" + distance;
+        }
+        if(isRemoved())
+        {
+            return name + " removed";
+        }
+        StringBuilder drift = new StringBuilder(name);
+        drift.append(" I ").append(previousInstability).append(" -> ").append(instability);
+        drift.append(", A ").append(previousAbstraction).append(" -> ").append(abstraction);
+        drift.append(", D ").append(previousDistance).append(" -> ").append(distance);
+        if(!addedDependencies.isEmpty())
+        {
+            drift.append(", now depends upon ").append(addedDependencies);
+        }
+        if(!removedDependencies.isEmpty())
+        {
+            drift.append(", no longer depends upon ").append(removedDependencies);
+        }
+        return drift.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package org.mark.maven.amp.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the modules of two snapshots by name. The component names of each side are decoded once and hashed by
+ * name so every module is matched in constant time, and only the metrics and dependencies are read from the mapped
+ * files, never the classes.
+ */
+public final class SnapshotComparison
+{
+    private static final double[] MISSING = {Double.NaN, Double.NaN, Double.NaN};
+
+    private SnapshotComparison()
+    {
+    }
+
+    /**
+     * @param previous the snapshot to compare against, usually from the main branch.
+     * @param current the snapshot of the build being checked.
+     * @return the drift of every module, those in the current snapshot in its order followed by the removed ones.
+     */
+    public static List<ModuleDrift> compare(ModelSnapshot previous, ModelSnapshot current)
+    {
+        String[] previousNames = componentNames(previous);
+        String[] currentNames = componentNames(current);
+        Map<String, Integer> previousIndices = indexByName(previousNames);
+        Map<String, Integer> currentIndices = indexByName(currentNames);
+
+        List<ModuleDrift> drifts = new ArrayList<>(current.getNumComponents());
+        for(int comp = 0; comp < current.getNumComponents(); comp++)
+        {
+            String name = currentNames[comp];
+            Set<String> dependencies = dependencyNames(current, comp, currentNames);
+            Integer previousComp = previousIndices.get(name);
+            if(previousComp == null)
+            {
+                drifts.add(new ModuleDrift(name, MISSING, metrics(current, comp), dependencies, new LinkedHashSet<>()));
+            }
+            else
+            {
+                Set<String> previousDependencies = dependencyNames(previous, previousComp, previousNames);
+                Set<String> added = new LinkedHashSet<>(dependencies);
+                added.removeAll(previousDependencies);
+                previousDependencies.removeAll(dependencies);
+                drifts.add(new ModuleDrift(name, metrics(previous, previousComp), metrics(current, comp), added,
+                                           previousDependencies));
+            }
+        }
+        for(int comp = 0; comp < previous.getNumComponents(); comp++)
+        {
+            String name = previousNames[comp];
+            if(!currentIndices.containsKey(name))
+            {
+                drifts.add(new ModuleDrift(name, metrics(previous, comp), MISSING, new LinkedHashSet<>(),
+                                           dependencyNames(previous, comp, previousNames)));
+            }
+        }
+        return drifts;
+    }
+
+    private static String[] componentNames(ModelSnapshot snapshot)
+    {
+        String[] names = new String[snapshot.getNumComponents()];
+        for(int comp = 0; comp < names.length; comp++)
+        {
+            names[comp] = snapshot.componentName(comp);
+        }
+        return names;
+    }
+
+    private static Map<String, Integer> indexByName(String[] names)
+    {
+        Map<String, Integer> indices = new HashMap<>(names.length * 2);
+        for(int comp = 0; comp < names.length; comp++)
+        {
+            indices.put(names[comp], comp);
+        }
+        return indices;
+    }
+
+    private static double[] metrics(ModelSnapshot snapshot, int comp)
+    {
+        return new double[] {snapshot.instability(comp), snapshot.abstraction(comp), snapshot.distance(comp)};
+    }
+
+    private static Set<String> dependencyNames(ModelSnapshot snapshot, int comp, String[] names)
+    {
+        Set<String> dependencyNames = new LinkedHashSet<>();
+        for(int dependency : snapshot.componentDependencies(comp))
+        {
+            dependencyNames.add(names[dependency]);
+        }
+        return dependencyNames;
+    }
+}
@@ -0,0 +1,176 @@
+package org.mark.maven.amp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.mark.maven.amp.ClassDefCreator.ClassDefCreationException;
+import org.mark.maven.amp.model.ClassDef;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+
+public class ParallelClassDefParserTest
+{
+    /**
+     * Creates a single {@link ClassDef} named after the file, sleeping longer for earlier files so workers finish out
+     * of order.
+     */
+    private final ClassDefCreator slowFirstCreator = srcFilePath -> {
+        int fileNum = Integer.parseInt(srcFilePath.getFileName().toString());
+        try
+        {
+            Thread.sleep(Math.max(0, 20 - fileNum));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.singletonList(aClassDef(srcFilePath.getFileName().toString()).build());
+    };
+
+    private final List<List<Path>> moduleSrcs = new ArrayList<>();
+
+    private List<Path> paths(int from, int to)
+    {
+        List<Path> paths = new ArrayList<>();
+        for(int i = from; i < to; i++)
+        {
+            paths.add(Paths.get(Integer.toString(i)));
+        }
+        return paths;
+    }
+
+    private static List<String> names(List<ClassDef> classDefs)
+    {
+        return classDefs.stream().map(ClassDef::getFullQualName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testModuleOrderIsDeterministic() throws Exception
+    {
+        moduleSrcs.add(paths(0, 3));
+        moduleSrcs.add(paths(3, 5));
+
+        List<List<ClassDef>> results = new ParallelClassDefParser(slowFirstCreator, 4).parse(moduleSrcs);
+
+        assertThat(results, hasSize(2));
+        assertThat(names(results.get(0)), contains("0", "1", "2"));
+        assertThat(names(results.get(1)), contains("3", "4"));
+    }
+
+    @Test
+    public void testSingleThreadMatchesParallel() throws Exception
+    {
+        moduleSrcs.add(paths(0, 10));
+
+        List<List<ClassDef>> sequential = new ParallelClassDefParser(slowFirstCreator, 1).parse(moduleSrcs);
+        List<List<ClassDef>> parallel = new ParallelClassDefParser(slowFirstCreator, 3).parse(moduleSrcs);
+
+        assertThat(names(parallel.get(0)), is(names(sequential.get(0))));
+    }
+
+    @Test
+    public void testEmptyModuleKeepsItsPlace() throws Exception
+    {
+        moduleSrcs.add(paths(0, 2));
+        moduleSrcs.add(new ArrayList<>());
+        moduleSrcs.add(paths(2, 3));
+
+        List<List<ClassDef>> results = new ParallelClassDefParser(slowFirstCreator, 2).parse(moduleSrcs);
+
+        assertThat(results, hasSize(3));
+        assertThat(results.get(1), hasSize(0));
+        assertThat(names(results.get(2)), contains("2"));
+    }
+
+    @Test
+    public void testFailuresAreCollected() throws Exception
+    {
+        moduleSrcs.add(paths(0, 4));
+        moduleSrcs.add(paths(4, 8));
+        ClassDefCreator failing = srcFilePath -> {
+            if(srcFilePath.endsWith("5"))
+            {
+                throw new ClassDefCreationException("broken " + srcFilePath, new IOException());
+            }
+            if(srcFilePath.endsWith("2"))
+            {
+                throw new IllegalStateException("parser bug");
+            }
+            return slowFirstCreator.createClassDefFor(srcFilePath);
+        };
+        ParallelClassDefParser parser = new ParallelClassDefParser(failing, 4);
+
+        List<List<ClassDef>> results = parser.parse(moduleSrcs);
+
+        assertThat(names(results.get(0)), contains("0", "1", "3"));
+        assertThat(names(results.get(1)), contains("4", "6", "7"));
+        assertThat(parser.getFailures().keySet(), contains(Paths.get("2"), Paths.get("5")));
+        assertThat(parser.getFailures().get(Paths.get("5")).getMessage(), is("broken 5"));
+    }
+
+    /**
+     * Records the threads it created class defs on and the threads released afterwards.
+     */
+    private final class ThreadRecordingCreator implements ClassDefCreator
+    {
+        private final Set<Thread> creating = ConcurrentHashMap.newKeySet();
+        private final Set<Thread> released = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public List<ClassDef> createClassDefFor(Path srcFilePath) throws ClassDefCreationException
+        {
+            creating.add(Thread.currentThread());
+            return slowFirstCreator.createClassDefFor(srcFilePath);
+        }
+
+        @Override
+        public void releaseThread()
+        {
+            released.add(Thread.currentThread());
+        }
+    }
+
+    @Test
+    public void testCallingThreadReleasedWhenParsingSequentially() throws Exception
+    {
+        moduleSrcs.add(paths(0, 3));
+        ThreadRecordingCreator creator = new ThreadRecordingCreator();
+
+        new ParallelClassDefParser(creator, 1).parse(moduleSrcs);
+
+        assertThat(creator.creating, contains(Thread.currentThread()));
+        assertThat(creator.released, is(creator.creating));
+    }
+
+    @Test
+    public void testWorkerThreadsReleasedWhenParsingConcurrently() throws Exception
+    {
+        moduleSrcs.add(paths(0, 8));
+        ThreadRecordingCreator creator = new ThreadRecordingCreator();
+
+        new ParallelClassDefParser(creator, 3).parse(moduleSrcs);
+
+        assertThat(creator.creating, not(hasItem(Thread.currentThread())));
+        assertThat(creator.released, is(creator.creating));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroThreadsRejected()
+    {
+        new ParallelClassDefParser(slowFirstCreator, 0);
+    }
+}
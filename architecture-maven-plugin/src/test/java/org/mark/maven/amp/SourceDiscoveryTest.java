@@ -0,0 +1,99 @@
+package org.mark.maven.amp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class SourceDiscoveryTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void createTree() throws IOException
+    {
+        root = tmp.newFolder("src").toPath();
+        for(String file : Arrays.asList("b/B.java", "a/A.java", "a/package-info.java", "a/ATest.java", "a/notes.txt",
+                                        "generated-sources/g/G.java", "Root.java"))
+        {
+            Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+        }
+    }
+
+    private List<String> relative(List<Path> files)
+    {
+        return files.stream().map(file -> root.relativize(file).toString().replace('\\', '/')).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFindsSortedFilesWithExtension() throws IOException
+    {
+        SourceDiscovery discovery = new SourceDiscovery("java", null, null, false, 1);
+
+        assertThat(relative(discovery.discoverModule(Collections.singletonList(root))),
+                   contains("Root.java", "a/A.java", "a/ATest.java", "b/B.java", "generated-sources/g/G.java"));
+    }
+
+    @Test
+    public void testSkipsGeneratedSources() throws IOException
+    {
+        SourceDiscovery discovery = new SourceDiscovery("java", null, null, true, 1);
+
+        assertThat(relative(discovery.discoverModule(Collections.singletonList(root))),
+                   contains("Root.java", "a/A.java", "a/ATest.java", "b/B.java"));
+    }
+
+    @Test
+    public void testIncludesAndExcludes() throws IOException
+    {
+        SourceDiscovery discovery = new SourceDiscovery("java", Collections.singletonList("a/**"),
+                                                        Collections.singletonList("**/*Test.java"), true, 1);
+
+        assertThat(relative(discovery.discoverModule(Collections.singletonList(root))), contains("a/A.java"));
+    }
+
+    @Test
+    public void testMissingRootIgnored() throws IOException
+    {
+        SourceDiscovery discovery = new SourceDiscovery("java", null, null, true, 1);
+
+        assertThat(discovery.discoverModule(Collections.singletonList(root.resolve("missing"))), is(empty()));
+    }
+
+    @Test
+    public void testModulesInOrderWhenConcurrent() throws Exception
+    {
+        SourceDiscovery discovery = new SourceDiscovery("java", null, null, true, 4);
+        List<List<Path>> moduleRoots = new ArrayList<>();
+        moduleRoots.add(Collections.singletonList(root.resolve("b")));
+        moduleRoots.add(Collections.singletonList(root.resolve("a")));
+        moduleRoots.add(Collections.emptyList());
+
+        List<List<Path>> moduleFiles = discovery.discover(moduleRoots);
+
+        assertThat(moduleFiles, hasSize(3));
+        assertThat(relative(moduleFiles.get(0)), contains("b/B.java"));
+        assertThat(relative(moduleFiles.get(1)), contains("a/A.java", "a/ATest.java"));
+        assertThat(moduleFiles.get(2), is(empty()));
+    }
+}
@@ -0,0 +1,251 @@
+package org.mark.maven.amp.bytecode;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.ClassDefCreator;
+import org.mark.maven.amp.ClassDefCreator.ClassDefCreationException;
+import org.mark.maven.amp.ParserType;
+import org.mark.maven.amp.incremental.Baseline;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.Granularity;
+import org.mark.maven.amp.model.ModuleSource;
+import org.mark.maven.amp.model.NestedTypePolicy;
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.model.SymbolTable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+public class ClassFileClassDefCreatorTest
+{
+    /**
+     * Only refers to {@link ReactorIndex} and {@link ModuleSource} through generic signatures.
+     */
+    static abstract class GenericHolder<T extends Comparable<ModuleSource>>
+    {
+        List<ReactorIndex> indices;
+
+        abstract Map<String, Supplier<T>> suppliers();
+    }
+
+    /**
+     * Only refers to {@link ReactorIndex} from an anonymous class and to {@link Baseline} from a local class.
+     */
+    static class Outer
+    {
+        Object anonymous = new Object()
+        {
+            ReactorIndex index;
+        };
+
+        interface Member
+        {
+        }
+
+        void method()
+        {
+            class Local
+            {
+                Baseline baseline;
+            }
+        }
+    }
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final ClassDefCreator creatorUnderTest = new ClassFileClassDefCreator(new SymbolTable());
+
+    private static Path classFile(Class<?> type) throws Exception
+    {
+        String fileName = type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class";
+        return Paths.get(type.getResource(fileName).toURI());
+    }
+
+    private ClassDef single(Class<?> type) throws Exception
+    {
+        List<ClassDef> classDefs = creatorUnderTest.createClassDefFor(classFile(type));
+        assertThat(classDefs, hasSize(1));
+        return classDefs.get(0);
+    }
+
+    @Test
+    public void testConcreteClass() throws Exception
+    {
+        ClassDef component = single(Component.class);
+
+        assertThat(component.getFullQualName(), is(Component.class.getName()));
+        assertThat(component.isAbstract(), is(false));
+        assertThat(component.getImports(), hasItems(ModuleSource.class.getName(),
+                                                    ComponentInstability.class.getName(),
+                                                    ReactorIndex.class.getName(),
+                                                    List.class.getName()));
+        assertThat(component.getImports(), not(hasItem(Component.class.getName())));
+    }
+
+    @Test
+    public void testInterfaceIsAbstract() throws Exception
+    {
+        assertThat(single(ClassDefCreator.class).isAbstract(), is(true));
+    }
+
+    @Test
+    public void testEnumWithConstantBodiesIsNotAbstract() throws Exception
+    {
+        assertThat(single(ParserType.class).isAbstract(), is(false));
+    }
+
+    @Test
+    public void testNestedClassUsesBinaryName() throws Exception
+    {
+        ClassDef exception = single(ClassDefCreationException.class);
+
+        assertThat(exception.getFullQualName(), is("org.mark.maven.amp.ClassDefCreator$ClassDefCreationException"));
+        assertThat(single(ClassDefCreator.class).getImports(),
+                   hasItem("org.mark.maven.amp.ClassDefCreator.ClassDefCreationException"));
+    }
+
+    @Test
+    public void testPackageGranularityGroupsNestedClassesWithTheirPackage() throws Exception
+    {
+        List<ClassDef> classDefs = new ArrayList<>();
+        for(Class<?> type : new Class<?>[] {ClassDefCreator.class, ClassDefCreationException.class, ParserType.class,
+                                            Component.class})
+        {
+            classDefs.add(single(type));
+        }
+
+        List<Component> components = Granularity.PACKAGE.componentsOf(
+                        Collections.singletonList(new ModuleSource("plugin", classDefs)), 0, NestedTypePolicy.TOP_LEVEL);
+
+        assertThat(components.stream().map(Component::getName).collect(Collectors.toList()),
+                   contains("org.mark.maven.amp", "org.mark.maven.amp.model"));
+    }
+
+    @Test
+    public void testNestedClassFilesGroupedUnderTopLevelClass() throws Exception
+    {
+        Path outerFile = classFile(Outer.class);
+        String outerFileName = outerFile.getFileName().toString().replace(".class", "");
+        List<ClassDef> classDefs = new ArrayList<>();
+        for(String suffix : new String[] {"$1Local", "", "$1", "$Member"})
+        {
+            classDefs.addAll(creatorUnderTest.createClassDefFor(outerFile.resolveSibling(outerFileName + suffix + ".class")));
+        }
+        assertThat(classDefs, hasSize(4));
+
+        List<ClassDef> topLevel = ClassFileClassDefCreator.nestUnderOwners(classDefs);
+
+        assertThat(topLevel, hasSize(1));
+        ClassDef outer = topLevel.get(0);
+        assertThat(outer.getFullQualName(), is(Outer.class.getName()));
+        assertThat(outer.getNestedTypes().stream().map(ClassDef::getFullQualName).collect(Collectors.toList()),
+                   contains(Outer.class.getName() + "$1Local", Outer.class.getName() + "$Member"));
+        assertThat(outer.getNestedTypes().get(1).isAbstract(), is(true));
+        assertThat(outer.getImports(), hasItems(ReactorIndex.class.getName(), Baseline.class.getName()));
+        assertThat(outer.getImports(), not(hasItem(Outer.class.getCanonicalName() + ".Member")));
+        assertThat(NestedTypePolicy.ALL.countClasses(topLevel), is(3));
+    }
+
+    @Test
+    public void testGenericSignatureTypesReferenced() throws Exception
+    {
+        ClassDef holder = single(GenericHolder.class);
+
+        assertThat(holder.isAbstract(), is(true));
+        assertThat(holder.getImports(), hasItems(ReactorIndex.class.getName(),
+                                                 ModuleSource.class.getName(),
+                                                 Supplier.class.getName(),
+                                                 Map.class.getName()));
+    }
+
+    @Test
+    public void testJarReadsEveryClass() throws Exception
+    {
+        Path jar = tmp.getRoot().toPath().resolve("module.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar)))
+        {
+            for(Class<?> type : new Class<?>[] {Component.class, ModuleSource.class})
+            {
+                out.putNextEntry(new ZipEntry(type.getName().replace('.', '/') + ".class"));
+                Files.copy(classFile(type), (OutputStream) out);
+                out.closeEntry();
+            }
+            out.putNextEntry(new ZipEntry("META-INF/notes.txt"));
+            out.closeEntry();
+        }
+
+        List<String> names = creatorUnderTest.createClassDefFor(jar).stream().
+                                              map(ClassDef::getFullQualName).
+                                              collect(Collectors.toList());
+
+        assertThat(names, containsInAnyOrder(Component.class.getName(), ModuleSource.class.getName()));
+    }
+
+    @Test(expected = ClassDefCreationException.class)
+    public void testMalformedClassFileRejected() throws Exception
+    {
+        Path broken = tmp.newFile("Broken.class").toPath();
+        Files.write(broken, new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+        creatorUnderTest.createClassDefFor(broken);
+    }
+
+    @Test
+    public void testBufferReusedAcrossClassFilesOfDifferentSizes() throws Exception
+    {
+        byte[] component = Files.readAllBytes(classFile(Component.class));
+        Path truncated = tmp.newFile("Truncated.class").toPath();
+        Files.write(truncated, Arrays.copyOf(component, component.length / 2));
+
+        assertThat(single(Component.class).getFullQualName(), is(Component.class.getName()));
+        assertThat(single(ClassDefCreator.class).getFullQualName(), is(ClassDefCreator.class.getName()));
+        try
+        {
+            creatorUnderTest.createClassDefFor(truncated);
+            fail("The rest of the previous, larger class file was read");
+        }
+        catch (ClassDefCreationException e)
+        {
+            // Only the bytes of the truncated file are in the buffer
+        }
+        assertThat(single(Component.class).getFullQualName(), is(Component.class.getName()));
+    }
+
+    @Test
+    public void testDescriptorAndSignatureParsing()
+    {
+        Set<String> referenced = new HashSet<>();
+        ClassFileClassDefCreator.collectTypes("<K:Ljava/lang/Object;V::Ljava/lang/Comparable<-TV;>;>" +
+                                              "(I[[La/b/Arr;Lc/Outer<+Ld/Arg;>.Inner<*>;)TK;", referenced);
+
+        assertThat(referenced, containsInAnyOrder("java/lang/Object", "java/lang/Comparable", "a/b/Arr",
+                                                  "c/Outer", "d/Arg"));
+    }
+}
@@ -0,0 +1,136 @@
+package org.mark.maven.amp.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.ClassDefCreator;
+import org.mark.maven.amp.model.ClassDef;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+
+public class CachingClassDefCreatorTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+
+    private final ClassDefCreator countingCreator = srcFilePath -> {
+        delegateCalls.incrementAndGet();
+        String name = "org.a." + srcFilePath.getFileName().toString().replace(".java", "");
+        return Collections.singletonList(aClassDef(name).withImport("org.b.Imported", "java.util.List").
+                                                        setAbstract(true).
+                                                        withNestedType(aClassDef(name + "$Inner")).
+                                                        build());
+    };
+
+    private Path cacheFile;
+    private Path srcA;
+    private Path srcB;
+
+    @Before
+    public void setupPerTest() throws IOException
+    {
+        cacheFile = tmp.getRoot().toPath().resolve("out").resolve("amp-classdef.cache");
+        srcA = write("ClassA.java", "class ClassA {}");
+        srcB = write("ClassB.java", "class ClassB {}");
+    }
+
+    private Path write(String fileName, String content) throws IOException
+    {
+        return Files.write(tmp.getRoot().toPath().resolve(fileName), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CachingClassDefCreator loadedCache() throws IOException
+    {
+        CachingClassDefCreator cache = new CachingClassDefCreator(TEST_SYMBOLS, countingCreator, cacheFile);
+        cache.load();
+        return cache;
+    }
+
+    @Test
+    public void testFirstRunParsesEverything() throws Exception
+    {
+        CachingClassDefCreator cache = loadedCache();
+        cache.createClassDefFor(srcA);
+        cache.createClassDefFor(srcB);
+
+        assertThat(cache.getMisses(), is(2));
+        assertThat(cache.getHits(), is(0));
+        assertThat(delegateCalls.get(), is(2));
+    }
+
+    @Test
+    public void testUnchangedFilesServedFromSavedCache() throws Exception
+    {
+        CachingClassDefCreator firstRun = loadedCache();
+        firstRun.createClassDefFor(srcA);
+        firstRun.createClassDefFor(srcB);
+        firstRun.save();
+
+        CachingClassDefCreator secondRun = loadedCache();
+        List<ClassDef> classDefs = secondRun.createClassDefFor(srcA);
+
+        assertThat(secondRun.getHits(), is(1));
+        assertThat(delegateCalls.get(), is(2));
+        assertThat(classDefs, hasSize(1));
+        assertThat(classDefs.get(0).getFullQualName(), is("org.a.ClassA"));
+        assertThat(classDefs.get(0).isAbstract(), is(true));
+        assertThat(classDefs.get(0).getImports(), containsInAnyOrder("org.b.Imported", "java.util.List"));
+        assertThat(classDefs.get(0).getNestedTypes(), hasSize(1));
+        assertThat(classDefs.get(0).getNestedTypes().get(0).getFullQualName(), is("org.a.ClassA$Inner"));
+        assertThat(classDefs.get(0).getNestedTypes().get(0).getImportIds(), is(classDefs.get(0).getImportIds()));
+    }
+
+    @Test
+    public void testChangedFileParsedAgain() throws Exception
+    {
+        CachingClassDefCreator firstRun = loadedCache();
+        firstRun.createClassDefFor(srcA);
+        firstRun.save();
+
+        write("ClassA.java", "class ClassA { int changed; }");
+        Files.setLastModifiedTime(srcA, FileTime.fromMillis(Files.getLastModifiedTime(srcA).toMillis() + 5000));
+
+        CachingClassDefCreator secondRun = loadedCache();
+        secondRun.createClassDefFor(srcA);
+
+        assertThat(secondRun.getMisses(), is(1));
+        assertThat(delegateCalls.get(), is(2));
+    }
+
+    @Test
+    public void testCorruptCacheIgnored() throws Exception
+    {
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, new byte[] {0x41, 0x4d, 0x50, 0x43, 0, 0, 0, 1, 0});
+
+        CachingClassDefCreator cache = new CachingClassDefCreator(TEST_SYMBOLS, countingCreator, cacheFile);
+        try
+        {
+            cache.load();
+        }
+        catch (IOException expected)
+        {
+            // reported to the caller, the cache must still be usable
+        }
+        cache.createClassDefFor(srcA);
+
+        assertThat(cache.getMisses(), is(1));
+    }
+}
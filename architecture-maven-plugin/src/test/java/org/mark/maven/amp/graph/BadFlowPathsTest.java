@@ -0,0 +1,65 @@
+package org.mark.maven.amp.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ReactorIndex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aSingleClassComponent;
+
+/**
+ * {@link BadFlowPaths} tests where T, T1 and T2 depend upon a stable S, which depends upon a less stable U, which
+ * depends upon M and then B at the bottom.
+ */
+public class BadFlowPathsTest
+{
+    private Component compT = aSingleClassComponent("T", "s.S");
+    private Component compT1 = aSingleClassComponent("T1", "s.S");
+    private Component compT2 = aSingleClassComponent("T2", "s.S");
+    private Component compS = aSingleClassComponent("S", "u.U");
+    private Component compU = aSingleClassComponent("U", "m.M");
+    private Component compM = aSingleClassComponent("M", "b.B");
+    private Component compB = aSingleClassComponent("B");
+    private ReactorIndex index = new ReactorIndex(TEST_SYMBOLS,
+                                                  Arrays.asList(compT, compT1, compT2, compS, compU, compM, compB));
+
+    @Test
+    public void testShortestPathThroughBadFlow()
+    {
+        List<BadFlowPath> paths = new BadFlowPaths(index, index.instabilities(), 5).find();
+
+        assertThat(paths.size(), is(1));
+        assertThat(paths.get(0).getSource(), is(compS));
+        assertThat(paths.get(0).getTarget(), is(compU));
+        assertThat(paths.get(0).getPath(), contains(compT, compS, compU, compM, compB));
+        assertThat(paths.get(0).toString(), is("T -> S -!-> U -> M -> B"));
+    }
+
+    @Test
+    public void testDepthLimit()
+    {
+        assertThat(new BadFlowPaths(index, index.instabilities(), 1).find().get(0).getPath(),
+                   contains(compT, compS, compU, compM));
+        assertThat(new BadFlowPaths(index, index.instabilities(), 0).find().get(0).getPath(), contains(compS, compU));
+    }
+
+    @Test
+    public void testNoBadFlow()
+    {
+        ReactorIndex stableIndex = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(compT, compM, compB));
+
+        assertThat(new BadFlowPaths(stableIndex, stableIndex.instabilities(), 5).find().isEmpty(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDepth()
+    {
+        new BadFlowPaths(index, index.instabilities(), -1);
+    }
+}
@@ -0,0 +1,96 @@
+package org.mark.maven.amp.graph;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.model.ReactorIndex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link ClassGraphFormat} tests against a.A, imported by b.B&lt;T&gt; in another component.
+ */
+public class ClassGraphFormatTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(
+                    aComponent().setName("A").setSourceModule(aSourceModule().withClassDef(aClassDef("a.A"))).build(),
+                    aComponent().setName("B&C").setSourceModule(aSourceModule().
+                                    withClassDef(aClassDef("b.B").withImport("a.A", "java.util.List"))).build()));
+
+    private Path export(ClassGraphFormat format) throws IOException
+    {
+        Path file = tmp.getRoot().toPath().resolve(format.getFileName());
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+        {
+            format.createExporter().export(index, out);
+        }
+        return file;
+    }
+
+    @Test
+    public void testGraphMl() throws IOException
+    {
+        String graphMl = new String(Files.readAllBytes(export(ClassGraphFormat.GRAPHML)), StandardCharsets.UTF_8);
+
+        assertThat(graphMl, containsString("<node id=\"n0\"><data key=\"name\">a.A</data><data key=\"component\">A</data></node>"));
+        assertThat(graphMl, containsString("<data key=\"component\">B&amp;C</data>"));
+        assertThat(graphMl, containsString("<edge source=\"n1\" target=\"n0\"/>"));
+        assertThat(graphMl.trim().endsWith("</graphml>"), is(true));
+    }
+
+    @Test
+    public void testCsv() throws IOException
+    {
+        List<String> lines = Files.readAllLines(export(ClassGraphFormat.CSV), StandardCharsets.UTF_8);
+
+        assertThat(lines, is(Arrays.asList("importer,importerComponent,imported,importedComponent", "b.B,B&C,a.A,A")));
+    }
+
+    @Test
+    public void testBinary() throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(export(ClassGraphFormat.BINARY))))
+        {
+            assertThat(in.readInt(), is(BinaryClassGraphExporter.MAGIC));
+            assertThat(in.readInt(), is(BinaryClassGraphExporter.VERSION));
+            assertThat(in.readInt(), is(2));
+            assertThat(in.readInt(), is(2));
+            assertThat(in.readInt(), is(1));
+            assertThat(readName(in), is("A"));
+            assertThat(readName(in), is("B&C"));
+            assertThat(in.readInt(), is(0));
+            assertThat(readName(in), is("a.A"));
+            assertThat(in.readInt(), is(1));
+            assertThat(readName(in), is("b.B"));
+            assertThat(in.readInt(), is(1));
+            assertThat(in.readInt(), is(0));
+            assertThat(in.read(), is(-1));
+        }
+    }
+
+    private static String readName(DataInputStream in) throws IOException
+    {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
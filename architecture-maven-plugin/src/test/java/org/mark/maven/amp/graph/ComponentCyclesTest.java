@@ -0,0 +1,67 @@
+package org.mark.maven.amp.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ReactorIndex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aSingleClassComponent;
+
+public class ComponentCyclesTest
+{
+    @Test
+    public void testNoCycles()
+    {
+        ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(aSingleClassComponent("A"),
+                                                            aSingleClassComponent("B", "a.A"),
+                                                            aSingleClassComponent("C", "a.A", "b.B")));
+
+        assertThat(new ComponentCycles(index).find(), is(empty()));
+    }
+
+    @Test
+    public void testCyclesWithShortestExamplePath()
+    {
+        // A -> B -> C -> D -> A with the shortcut A -> C -> A, E -> F -> E and G standing alone on top of them
+        Component compA = aSingleClassComponent("A", "b.B", "c.C");
+        Component compB = aSingleClassComponent("B", "c.C");
+        Component compC = aSingleClassComponent("C", "d.D", "a.A");
+        Component compD = aSingleClassComponent("D", "a.A");
+        Component compE = aSingleClassComponent("E", "f.F");
+        Component compF = aSingleClassComponent("F", "e.E");
+        Component compG = aSingleClassComponent("G", "a.A", "e.E");
+        ReactorIndex index = new ReactorIndex(TEST_SYMBOLS,
+                                              Arrays.asList(compG, compA, compB, compC, compD, compE, compF));
+
+        List<DependencyCycle> cycles = new ComponentCycles(index).find();
+
+        assertThat(cycles.size(), is(2));
+        assertThat(cycles.get(0).getComponents(), contains(compA, compB, compC, compD));
+        assertThat(cycles.get(0).getExamplePath(), contains(compA, compC, compA));
+        assertThat(cycles.get(0).toString(), is("A -> C -> A"));
+        assertThat(cycles.get(1).getComponents(), contains(compE, compF));
+        assertThat(cycles.get(1).getExamplePath(), contains(compE, compF, compE));
+    }
+
+    @Test
+    public void testLongChainDoesNotOverflow()
+    {
+        Component[] chain = new Component[5000];
+        for(int i = 0; i < chain.length; i++)
+        {
+            chain[i] = aSingleClassComponent("M" + i, "m" + ((i + 1) % chain.length) + ".M" + ((i + 1) % chain.length));
+        }
+
+        List<DependencyCycle> cycles = new ComponentCycles(new ReactorIndex(TEST_SYMBOLS, Arrays.asList(chain))).find();
+
+        assertThat(cycles.size(), is(1));
+        assertThat(cycles.get(0).getExamplePath().size(), is(chain.length + 1));
+    }
+}
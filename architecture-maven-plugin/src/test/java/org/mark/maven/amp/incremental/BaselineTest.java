@@ -0,0 +1,115 @@
+package org.mark.maven.amp.incremental;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+import org.mark.maven.amp.snapshot.ModelSnapshot;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link Baseline} tests against a chain of components where C depends upon B which depends upon A, and D stands
+ * alone.
+ */
+public class BaselineTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Component compA = aComponent().setName("A").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("a.A").setAbstract(true))).build();
+    private Component compB = aComponent().setName("B").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("b.B").withImport("a.A", "java.util.List"))).build();
+    private Component compC = aComponent().setName("C").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("c.C").withImport("b.B"))).build();
+    private Component compD = aComponent().setName("D").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("d.D"))).build();
+    private ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(compA, compB, compC, compD));
+    private Map<Component, ComponentInstability> instabilities = index.instabilities();
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        Path baselineFile = tmp.getRoot().toPath().resolve("target").resolve("amp-baseline.bin");
+        ModelSnapshot.write(baselineFile, index, instabilities);
+
+        Baseline readBaseline = Baseline.read(baselineFile, TEST_SYMBOLS);
+
+        assertThat(readBaseline.getModuleNames(), contains("A", "B", "C", "D"));
+        assertThat(readBaseline.getInstability("B"), is(instabilities.get(compB).getInstabilityValue()));
+        assertThat(readBaseline.getDependencies("B"), contains("A"));
+        ClassDef classB = readBaseline.getClassDefs("B").get(0);
+        assertThat(classB.getFullQualName(), is("b.B"));
+        assertThat(classB.getImports(), containsInAnyOrder("a.A", "java.util.List"));
+        assertThat(readBaseline.getClassDefs("A").get(0).isAbstract(), is(true));
+    }
+
+    @Test
+    public void testBaselineFileReplaceableAfterRead() throws IOException
+    {
+        Path baselineFile = tmp.getRoot().toPath().resolve("amp-baseline.bin");
+        ModelSnapshot.write(baselineFile, index, instabilities);
+        Baseline.read(baselineFile, TEST_SYMBOLS);
+
+        ModelSnapshot.write(baselineFile, index, instabilities);
+        Files.delete(baselineFile);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherFiles() throws IOException
+    {
+        Path notABaseline = tmp.newFile().toPath();
+        Files.write(notABaseline, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        Baseline.read(notABaseline, TEST_SYMBOLS);
+    }
+
+    @Test
+    public void testUnknownModule()
+    {
+        Baseline baseline = Baseline.of(index, instabilities);
+
+        assertThat(baseline.contains("E"), is(false));
+        assertThat(baseline.getClassDefs("E").isEmpty(), is(true));
+        assertThat(Double.isNaN(baseline.getInstability("E")), is(true));
+    }
+
+    @Test
+    public void testAffectedByIncludesNeighbours()
+    {
+        Baseline baseline = Baseline.of(index, instabilities);
+
+        assertThat(baseline.affectedBy(Collections.singleton("B"), instabilities), containsInAnyOrder("A", "B", "C"));
+        assertThat(baseline.affectedBy(Collections.singleton("D"), instabilities), contains("D"));
+    }
+
+    @Test
+    public void testAffectedByIncludesRemovedDependencies()
+    {
+        Baseline baseline = Baseline.of(index, instabilities);
+        // B no longer imports A
+        Component newB = aComponent().setName("B").setSourceModule(aSourceModule().withClassDef(aClassDef("b.B"))).build();
+        Map<Component, ComponentInstability> newInstabilities =
+                        new ReactorIndex(TEST_SYMBOLS, Arrays.asList(compA, newB, compC, compD)).instabilities();
+
+        assertThat(baseline.affectedBy(Collections.singleton("B"), newInstabilities), containsInAnyOrder("A", "B", "C"));
+    }
+}
@@ -0,0 +1,150 @@
+package org.mark.maven.amp.incremental;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class GitChangedFilesTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testModulesTouchedPrefersDeepestModule() throws IOException
+    {
+        Path root = tmp.getRoot().toPath();
+        Map<String, Path> basedirs = new LinkedHashMap<>();
+        basedirs.put("parent", root);
+        basedirs.put("child", root.resolve("child"));
+        basedirs.put("childish", root.resolve("childish"));
+        GitChangedFiles changes = new GitChangedFiles(new HashSet<>(Arrays.asList(root.resolve("child/src/A.java"),
+                                                                                  root.resolve("pom.xml"))));
+
+        assertThat(changes.modulesTouched(basedirs), containsInAnyOrder("child", "parent"));
+    }
+
+    @Test
+    public void testFileOutsideEveryModuleTouchesAllModules()
+    {
+        Path root = tmp.getRoot().toPath();
+        Map<String, Path> basedirs = new LinkedHashMap<>();
+        basedirs.put("module", root.resolve("module"));
+        basedirs.put("other", root.resolve("other"));
+        GitChangedFiles changes = new GitChangedFiles(new HashSet<>(Arrays.asList(root.resolve("module/A.java"),
+                                                                                  root.resolve("shared/build.xml"))));
+
+        assertThat(changes.modulesTouched(basedirs), containsInAnyOrder("module", "other"));
+    }
+
+    @Test
+    public void testModulesTouchedThroughSymlinkedBasedir() throws IOException
+    {
+        Path real = tmp.newFolder("real").toPath().toRealPath();
+        Files.createDirectories(real.resolve("module/src"));
+        Path link;
+        try
+        {
+            link = Files.createSymbolicLink(tmp.getRoot().toPath().resolve("link"), real);
+        }
+        catch (UnsupportedOperationException | IOException e)
+        {
+            Assume.assumeNoException(e);
+            return;
+        }
+        Map<String, Path> basedirs = new LinkedHashMap<>();
+        basedirs.put("module", link.resolve("module"));
+        basedirs.put("untouched", link.resolve("untouched"));
+        GitChangedFiles changes = new GitChangedFiles(new HashSet<>(Arrays.asList(real.resolve("module/src/A.java"))));
+
+        assertThat(changes.modulesTouched(basedirs), contains("module"));
+    }
+
+    @Test
+    public void testSinceListsModifiedAndUntrackedFiles() throws Exception
+    {
+        Path repo = tmp.newFolder("repo").toPath().toRealPath();
+        Assume.assumeTrue(git(repo, "init", "-q"));
+        Files.createDirectories(repo.resolve("a"));
+        Files.createDirectories(repo.resolve("b"));
+        Files.write(repo.resolve("a/A.java"), "class A {}".getBytes());
+        Files.write(repo.resolve("b/B.java"), "class B {}".getBytes());
+        git(repo, "add", ".");
+        git(repo, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", "baseline");
+        Files.write(repo.resolve("a/A.java"), "class A { int a; }".getBytes());
+        Files.write(repo.resolve("b/New.java"), "class New {}".getBytes());
+
+        GitChangedFiles changes = GitChangedFiles.since("HEAD", repo.resolve("a"));
+
+        assertThat(changes.getFiles(), containsInAnyOrder(repo.resolve("a/A.java"), repo.resolve("b/New.java")));
+    }
+
+    @Test
+    public void testSinceIgnoresWarningsAndKeepsUnusualNames() throws Exception
+    {
+        Path repo = tmp.newFolder("repo").toPath().toRealPath();
+        Assume.assumeTrue(git(repo, "init", "-q"));
+        Files.write(repo.resolve("Tracked.java"), "class Tracked {}\n".getBytes());
+        git(repo, "add", ".");
+        git(repo, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", "baseline");
+        // LF files in a working tree that converts to CRLF make git warn on stderr
+        git(repo, "config", "core.autocrlf", "true");
+        git(repo, "config", "core.safecrlf", "warn");
+        Files.write(repo.resolve("Tracked.java"), "class Tracked { int a; }\n".getBytes());
+        // Without -z git quotes names with double quotes, tabs or, by default, non-ASCII characters
+        Path quoted = Files.write(repo.resolve("Say \"hi\"\t.java"), "class Hi {}\n".getBytes());
+        Path nonAscii;
+        try
+        {
+            nonAscii = Files.write(repo.resolve("Gr\u00fc\u00dfe.java"), "class Gruesse {}\n".getBytes());
+        }
+        catch (InvalidPathException e)
+        {
+            // The platform encoding cannot represent the name
+            nonAscii = quoted;
+        }
+
+        GitChangedFiles changes = GitChangedFiles.since("HEAD", repo);
+
+        assertThat(changes.getFiles(), containsInAnyOrder(new HashSet<>(Arrays.asList(repo.resolve("Tracked.java"),
+                                                                                       quoted, nonAscii)).toArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testSinceUnknownRevision() throws Exception
+    {
+        Path repo = tmp.newFolder("repo").toPath();
+        Assume.assumeTrue(git(repo, "init", "-q"));
+
+        GitChangedFiles.since("no-such-revision", repo);
+    }
+
+    private static boolean git(Path dir, String... args) throws InterruptedException
+    {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        try
+        {
+            return new ProcessBuilder(command).directory(dir.toFile()).inheritIO().start().waitFor() == 0;
+        }
+        catch (IOException e)
+        {
+            // git is not installed
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.mark.maven.amp.javaparser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.ClassDefCreator.ClassDefCreationException;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.SymbolTable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * {@link JavaParserClassDefCreator} tests for the deep analysis mode and language levels, the declarations it reports
+ * are compared against the scanner in HeaderScanningClassDefCreatorTest.
+ */
+public class JavaParserClassDefCreatorTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    private Path source(String... lines) throws IOException
+    {
+        Path srcFile = tmp.newFile().toPath();
+        return Files.write(srcFile, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Set<String> importsOf(JavaParserClassDefCreator creator) throws Exception
+    {
+        Path src = source(
+            "package org.a;",
+            "import java.util.List;",
+            "import org.b.*;",
+            "@Marker",
+            "public class Deep<T> extends Base implements org.c.Api {",
+            "    private List<Sibling> siblings;",
+            "    private T value;",
+            "    private Nested nested;",
+            "    Object create() { return new org.d.Impl(Helper.util(), org.e.Consts.MAX, MAX, counter.next()); }",
+            "    String name() { return String.valueOf(value); }",
+            "    static class Nested {}",
+            "}");
+        return creator.createClassDefFor(src).get(0).getImports();
+    }
+
+    @Test
+    public void testImportsOnlyByDefault() throws Exception
+    {
+        assertThat(importsOf(new JavaParserClassDefCreator(symbols)), containsInAnyOrder("java.util.List", "org.b"));
+    }
+
+    @Test
+    public void testDeepAnalysisAddsReferencedTypes() throws Exception
+    {
+        assertThat(importsOf(new JavaParserClassDefCreator(symbols, true)), containsInAnyOrder(
+                        "java.util.List", "org.b", "org.a.Marker", "org.a.Base", "org.c.Api", "org.a.Sibling",
+                        "org.d.Impl", "org.a.Helper", "org.e.Consts"));
+    }
+
+    @Test
+    public void testDeepAnalysisSkipsMemberAccessesOfVariables() throws Exception
+    {
+        Path src = source(
+            "package org.a;",
+            "class Accesses {",
+            "    private Holder holder;",
+            "    int sum(Config config) {",
+            "        Settings settings = load();",
+            "        return holder.config.Limits.MAX + config.limits.Max.of() + settings.values.Count.ALL +",
+            "               org.f.Limits.MAX + later.values.Size.MIN;",
+            "    }",
+            "    private Later later;",
+            "}");
+        int symbolsBefore = symbols.size();
+
+        assertThat(new JavaParserClassDefCreator(symbols, true).createClassDefFor(src).get(0).getImports(),
+                   containsInAnyOrder("org.a.Holder", "org.a.Config", "org.a.Settings", "org.a.Later", "org.f.Limits"));
+        assertThat(symbols.idOf("holder.config.Limits"), is(SymbolTable.UNKNOWN));
+        assertThat(symbols.size() - symbolsBefore, is(6));
+    }
+
+    @Test
+    public void testDeepAnalysisSharesCandidatesAcrossFiles() throws Exception
+    {
+        JavaParserClassDefCreator creator = new JavaParserClassDefCreator(symbols, true);
+        ClassDef first = creator.createClassDefFor(source("package org.a;", "class One { Sibling s; }")).get(0);
+        ClassDef second = creator.createClassDefFor(source("package org.a;", "class Two extends Sibling {}")).get(0);
+
+        assertThat(first.getImportIds(), is(second.getImportIds()));
+        assertThat(first.getImports(), containsInAnyOrder("org.a.Sibling"));
+    }
+
+    @Test
+    public void testLanguageLevel() throws Exception
+    {
+        Path src = source("package org.a;", "public record Point(int x, int y) {}");
+
+        assertThat(new JavaParserClassDefCreator(symbols, false, LanguageLevel.JAVA_17).createClassDefFor(src).get(0).
+                                                                               getFullQualName(), is("org.a.Point"));
+        try
+        {
+            new JavaParserClassDefCreator(symbols, false, LanguageLevel.JAVA_8).createClassDefFor(src);
+            throw new AssertionError("Record parsed at Java 8");
+        }
+        catch (ClassDefCreationException e)
+        {
+            assertThat(e.getMessage(), containsString(src.toString()));
+        }
+    }
+
+    @Test
+    public void testIdentityCoversModeAndLanguageLevel()
+    {
+        assertThat(new JavaParserClassDefCreator(symbols, true).getIdentity(),
+                   not(new JavaParserClassDefCreator(symbols).getIdentity()));
+        assertThat(new JavaParserClassDefCreator(symbols, false, LanguageLevel.JAVA_8).getIdentity(),
+                   not(new JavaParserClassDefCreator(symbols, false, LanguageLevel.JAVA_17).getIdentity()));
+        assertThat(new JavaParserClassDefCreator(symbols).getIdentity(),
+                   is(new JavaParserClassDefCreator(symbols, false, JavaParserClassDefCreator.DEFAULT_LANGUAGE_LEVEL).
+                      getIdentity()));
+    }
+
+    @Test(expected = ClassDefCreationException.class)
+    public void testSyntaxErrorFails() throws Exception
+    {
+        new JavaParserClassDefCreator(symbols).createClassDefFor(source("package org.a;", "public class Broken {"));
+    }
+}
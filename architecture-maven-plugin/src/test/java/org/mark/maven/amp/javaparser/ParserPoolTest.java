@@ -0,0 +1,75 @@
+package org.mark.maven.amp.javaparser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ParserPoolTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final ParserPool pool = new ParserPool(LanguageLevel.JAVA_17);
+
+    private Path source(String content) throws IOException
+    {
+        Path srcFile = tmp.newFile().toPath();
+        return Files.write(srcFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String typeNameOf(Path srcFile) throws IOException
+    {
+        ParseResult<CompilationUnit> parsed = pool.parse(srcFile);
+        assertThat(parsed.getProblems().toString(), parsed.isSuccessful(), is(true));
+        return parsed.getResult().get().getType(0).getNameAsString();
+    }
+
+    @Test
+    public void testBufferGrowsAndIsReused() throws Exception
+    {
+        StringBuilder large = new StringBuilder("class Large {\n");
+        while(large.length() < 200 * 1024)
+        {
+            large.append("    // padding beyond the initial buffer\n");
+        }
+        large.append("}\n");
+
+        assertThat(typeNameOf(source("class Small {}")), is("Small"));
+        assertThat(typeNameOf(source(large.toString())), is("Large"));
+        assertThat(typeNameOf(source("class Ünïcode { String s = \"€\"; }")), is("Ünïcode"));
+    }
+
+    @Test
+    public void testEachThreadHasItsOwnParser() throws Exception
+    {
+        Path first = source("class First {}");
+        String[] onOtherThread = new String[1];
+        Thread other = new Thread(() -> {
+            try
+            {
+                onOtherThread[0] = typeNameOf(source("class Second {}"));
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(typeNameOf(first), is("First"));
+        other.start();
+        other.join();
+        assertThat(onOtherThread[0], is("Second"));
+        assertThat(typeNameOf(first), is("First"));
+    }
+}
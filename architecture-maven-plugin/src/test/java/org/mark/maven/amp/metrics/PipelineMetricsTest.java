@@ -0,0 +1,127 @@
+package org.mark.maven.amp.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * {@link PipelineMetrics} and {@link Stage} unit tests.
+ */
+public class PipelineMetricsTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private PipelineMetrics metricsUnderTest = new PipelineMetrics("stability");
+
+    @Test
+    public void testStageCountsInOrder()
+    {
+        Stage stage = metricsUnderTest.start("parse");
+        stage.count("files", 2).count("classes", 3).count("files", 1);
+        stage.stop();
+
+        assertThat(stage.getCounters().keySet(), contains("files", "classes"));
+        assertThat(stage.getCounters().get("files"), is(3L));
+        assertThat(stage.getWallNanos(), is(greaterThanOrEqualTo(0L)));
+    }
+
+    @Test
+    public void testStageOnlyStopsOnce()
+    {
+        Stage stage = metricsUnderTest.start("parse");
+        stage.stop();
+        long wallNanos = stage.getWallNanos();
+        stage.stop();
+
+        assertThat(stage.getWallNanos(), is(wallNanos));
+    }
+
+    @Test
+    public void testUnstoppedStageExcludedFromTotal()
+    {
+        Stage stopped = metricsUnderTest.start("discovery");
+        stopped.stop();
+        metricsUnderTest.start("parse");
+
+        assertThat(metricsUnderTest.getTotalWallNanos(), is(stopped.getWallNanos()));
+    }
+
+    @Test
+    public void testStageCountsThreadsThatExitedWhileOpen() throws InterruptedException
+    {
+        Stage stage = metricsUnderTest.start("parse");
+        long[][] garbage = new long[1][];
+        Thread worker = new Thread(PipelineMetrics.countingAllocations(() -> {
+            for(int i = 0; i < 64; i++)
+            {
+                garbage[0] = new long[16 * 1024];
+            }
+        }));
+        worker.start();
+        worker.join();
+        stage.stop();
+
+        Assume.assumeTrue(stage.getAllocatedBytes() >= 0);
+        assertThat(stage.getAllocatedBytes(), is(greaterThanOrEqualTo(64L * 16 * 1024 * 8)));
+    }
+
+    @Test
+    public void testJson() throws IOException
+    {
+        Stage stage = metricsUnderTest.start("discovery");
+        stage.count("modules", 2).stop();
+        metricsUnderTest.start("parse").stop();
+        StringWriter out = new StringWriter();
+
+        metricsUnderTest.writeJson(out);
+
+        String json = out.toString().trim();
+        assertThat(json, startsWith("{\"goal\":\"stability\",\"totalWallNanos\":"));
+        assertThat(json, containsString("{\"name\":\"discovery\",\"wallNanos\":" + stage.getWallNanos() +
+                                        ",\"allocatedBytes\":" + stage.getAllocatedBytes() + ",\"counters\":{\"modules\":2}}"));
+        assertThat(json, containsString(",{\"name\":\"parse\","));
+        assertThat(json, containsString("\"counters\":{}}]}"));
+    }
+
+    @Test
+    public void testWriteJsonCreatesDirectory() throws IOException
+    {
+        metricsUnderTest.start("discovery").stop();
+        Path metricsFile = tmp.getRoot().toPath().resolve("target").resolve("amp-metrics.json");
+
+        metricsUnderTest.writeJson(metricsFile);
+
+        assertThat(new String(Files.readAllBytes(metricsFile), StandardCharsets.UTF_8), startsWith("{\"goal\""));
+    }
+
+    @Test
+    public void testSummary()
+    {
+        metricsUnderTest.start("discovery").count("files", 7).stop();
+
+        List<String> summary = metricsUnderTest.summary();
+
+        assertThat(summary, hasSize(3));
+        assertThat(summary.get(0), startsWith("Stage"));
+        assertThat(summary.get(1), startsWith("discovery"));
+        assertThat(summary.get(1), containsString("files=7"));
+        assertThat(summary.get(2), startsWith("total"));
+    }
+}
@@ -1,9 +1,14 @@
 package org.mark.maven.amp.model;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
 import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
 
 /**
@@ -48,9 +53,51 @@ public class ClassDefTest
         assertThat(classA.imports(Double.class.getName()), is(false));
     }
 
+    @Test
+    public void testImportsCopiedOnConstruction()
+    {
+        Set<String> imports = new HashSet<>();
+        imports.add("org.a.classB");
+        ClassDef classDef = new ClassDef(TEST_SYMBOLS, "ClassA", imports, false);
+        imports.add("org.c.classC");
+
+        assertThat(classDef.imports("org.c.classC"), is(false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetImportsUnmodifiable()
+    {
+        classA.getImports().add("org.c.classC");
+    }
+
     @Test
     public void testToStringDoesntThrow()
     {
         classA.toString();
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNestedTypeFromAnotherTableRejected()
+    {
+        ClassDef inner = aClassDef("nest.Outer$Inner").withSymbols(new SymbolTable()).build();
+
+        new ClassDef(TEST_SYMBOLS, "nest.Outer", inner.getImportIds(), false, Collections.singletonList(inner));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNestedTypesAreOneLevelDeep()
+    {
+        ClassDef outer = aClassDef("nest.Outer").withNestedType(aClassDef("nest.Outer$Inner")).build();
+
+        new ClassDef(TEST_SYMBOLS, "nest.Other", outer.getImportIds(), false, Collections.singletonList(outer));
+    }
+
+    @Test
+    public void testIsLocal()
+    {
+        assertThat(aClassDef("nest.Outer$Inner").build().isLocal(), is(false));
+        assertThat(aClassDef("nest.Outer$1Local").build().isLocal(), is(true));
+        assertThat(aClassDef("nest.Outer$1Local$Inner").build().isLocal(), is(true));
+        assertThat(aClassDef("nest.Outer$Inner$2Local").build().isLocal(), is(true));
+    }
 }
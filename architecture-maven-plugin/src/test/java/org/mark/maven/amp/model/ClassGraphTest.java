@@ -0,0 +1,131 @@
+package org.mark.maven.amp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link ClassGraph} unit tests. Component X holds graph.x1 and graph.x2, component Y holds graph.y1.
+ *
+ * <pre>
+ *   x1 --> x2 --> y1
+ *    \___________/^
+ * </pre>
+ */
+public class ClassGraphTest
+{
+    private ClassDef x1 = aClassDef("graph.x1").withImport("graph.x2", "graph.y1", String.class.getName()).build();
+    private ClassDef x2 = aClassDef("graph.x2").withImport("graph.y1", "graph.x2").build();
+    private ClassDef y1 = aClassDef("graph.y1").build();
+    private Component compX = aComponent().setName("X").setSourceModule(aSourceModule().setName("x").withClassDef(x1).withClassDef(x2)).build();
+    private Component compY = aComponent().setName("Y").setSourceModule(aSourceModule().setName("y").withClassDef(y1)).build();
+
+    private ClassGraph graphUnderTest = new ClassGraph(TEST_SYMBOLS,
+                                                       Stream.of(compX, compY).collect(Collectors.toList()));
+
+    private List<ClassDef> targets(ClassDef classDef)
+    {
+        int node = graphUnderTest.nodeOf(classDef.getId());
+        List<ClassDef> targets = new ArrayList<>();
+        for(int edge = graphUnderTest.edgeStart(node); edge < graphUnderTest.edgeEnd(node); edge++)
+        {
+            targets.add(graphUnderTest.classAt(graphUnderTest.edgeTarget(edge)));
+        }
+        return targets;
+    }
+
+    private List<ClassDef> sources(ClassDef classDef)
+    {
+        int node = graphUnderTest.nodeOf(classDef.getId());
+        List<ClassDef> sources = new ArrayList<>();
+        for(int edge = graphUnderTest.inEdgeStart(node); edge < graphUnderTest.inEdgeEnd(node); edge++)
+        {
+            sources.add(graphUnderTest.classAt(graphUnderTest.inEdgeSource(edge)));
+        }
+        return sources;
+    }
+
+    @Test
+    public void testNodesNumberedByComponent()
+    {
+        assertThat(graphUnderTest.getNumClasses(), is(3));
+        assertThat(graphUnderTest.getNumComponents(), is(2));
+        assertThat(graphUnderTest.componentStart(0), is(0));
+        assertThat(graphUnderTest.componentEnd(0), is(2));
+        assertThat(graphUnderTest.componentOf(graphUnderTest.nodeOf(y1.getId())), is(1));
+    }
+
+    @Test
+    public void testOutgoingEdgesOnlyToReactorClasses()
+    {
+        assertThat(graphUnderTest.getNumEdges(), is(3));
+        assertThat(targets(x1), containsInAnyOrder(x2, y1));
+        assertThat(targets(y1), is(empty()));
+    }
+
+    @Test
+    public void testSelfImportIgnored()
+    {
+        assertThat(targets(x2), containsInAnyOrder(y1));
+    }
+
+    @Test
+    public void testIncomingEdges()
+    {
+        assertThat(sources(y1), containsInAnyOrder(x1, x2));
+        assertThat(sources(x1), is(empty()));
+    }
+
+    @Test
+    public void testUnknownClassHasNoNode()
+    {
+        assertThat(graphUnderTest.nodeOf(TEST_SYMBOLS.idOf(String.class.getName())), is(-1));
+        assertThat(graphUnderTest.nodeOf(SymbolTable.UNKNOWN), is(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClassFromAnotherTableRejected()
+    {
+        ClassDef other = aClassDef("graph.x1").withSymbols(new SymbolTable()).build();
+
+        Component otherComp = aComponent().setName("O").setSourceModule(aSourceModule().setName("o").withClassDef(other)).
+                        build();
+
+        new ClassGraph(TEST_SYMBOLS, Stream.of(compY, otherComp).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testWildcardAndStaticImportsResolved()
+    {
+        ClassDef w = aClassDef("resolve.w").withImport("graph", "graph.x1", "graph.y1.CONSTANT", "java.util").build();
+        graphUnderTest = new ClassGraph(TEST_SYMBOLS, Stream.of(compX, compY, aComponent().setName("W").
+                        setSourceModule(aSourceModule().setName("w").withClassDef(w)).build()).collect(Collectors.toList()));
+
+        assertThat(targets(w), containsInAnyOrder(x1, x2, y1));
+        assertThat(sources(x1), containsInAnyOrder(w));
+        assertThat(graphUnderTest.getNumEdges(), is(6));
+    }
+
+    @Test
+    public void testNestedTypeImportResolvedToOuterClass()
+    {
+        ClassDef n = aClassDef("resolve.n").withImport("graph.x2.Inner", "graph.x2.Inner.method").build();
+        graphUnderTest = new ClassGraph(TEST_SYMBOLS, Stream.of(compX, compY, aComponent().setName("N").
+                        setSourceModule(aSourceModule().setName("n").withClassDef(n)).build()).collect(Collectors.toList()));
+
+        assertThat(targets(n), contains(x2));
+    }
+}
@@ -131,6 +131,21 @@ public class ComponentTest
         });
     }
 
+    @Test
+    public void testDependsUponResolvesWildcardImports()
+    {
+        // Wildcard imports are recorded as the bare package name
+        ClassDef api = aClassDef("wildcard.api.Api").build();
+        ClassDef client = aClassDef("wildcard.client.Client").withImport("wildcard.api").build();
+        Component apiComp = aComponent().setName("Api").setSourceModule(aSourceModule().setName("api").withClassDef(api)).build();
+        Component clientComp = aComponent().setName("Client").setSourceModule(aSourceModule().setName("client").withClassDef(client)).build();
+
+        assertThat(clientComp.dependsUpon(apiComp), is(true));
+        assertThat(apiComp.dependsUpon(clientComp), is(false));
+        assertThat(clientComp.dependents(apiComp).get(api), hasItem(client));
+        assertThat(clientComp.dependents(apiComp).size(), is(1));
+    }
+
     @Test
     public void testComponentDependenciesWithNoIn()
     {
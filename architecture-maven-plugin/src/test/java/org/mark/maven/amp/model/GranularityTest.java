@@ -0,0 +1,69 @@
+package org.mark.maven.amp.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+public class GranularityTest
+{
+    private List<ModuleSource> srcModules = Arrays.asList(
+                    aSourceModule().setName("core").
+                                    withClassDef(aClassDef("org.acme.core.A")).
+                                    withClassDef(aClassDef("org.acme.core.model.B").withImport("org.acme.core.A")).build(),
+                    aSourceModule().setName("app").
+                                    withClassDef(aClassDef("org.acme.core.C")).
+                                    withClassDef(aClassDef("org.acme.app.Main").withImport("org.acme.core.model.B")).
+                                    withClassDef(aClassDef("Script")).build());
+
+    private static List<String> names(List<Component> components)
+    {
+        return components.stream().map(Component::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testModule()
+    {
+        assertThat(names(Granularity.MODULE.componentsOf(srcModules, 2, NestedTypePolicy.TOP_LEVEL)), contains("core", "app"));
+    }
+
+    @Test
+    public void testPackageSpansModules()
+    {
+        List<Component> components = Granularity.PACKAGE.componentsOf(srcModules, 0, NestedTypePolicy.TOP_LEVEL);
+
+        assertThat(names(components), contains("org.acme.core", "org.acme.core.model", "org.acme.app",
+                                               Granularity.DEFAULT_PACKAGE));
+        assertThat(components.get(0).getNumClasses(), is(2));
+    }
+
+    @Test
+    public void testPackageDepth()
+    {
+        List<Component> components = Granularity.PACKAGE.componentsOf(srcModules, 3, NestedTypePolicy.TOP_LEVEL);
+
+        assertThat(names(components), contains("org.acme.core", "org.acme.app", Granularity.DEFAULT_PACKAGE));
+        assertThat(components.get(0).getNumClasses(), is(3));
+        ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, components);
+        assertThat(index.dependsUpon(components.get(1), components.get(0)), is(true));
+        assertThat(index.dependsUpon(components.get(0), components.get(1)), is(false));
+    }
+
+    @Test
+    public void testPackageOf()
+    {
+        assertThat(Granularity.packageOf("a.b.c.D", 0), is("a.b.c"));
+        assertThat(Granularity.packageOf("a.b.c.D", 1), is("a"));
+        assertThat(Granularity.packageOf("a.b.c.D", 2), is("a.b"));
+        assertThat(Granularity.packageOf("a.b.c.D", 5), is("a.b.c"));
+        assertThat(Granularity.packageOf("D", 2), is(Granularity.DEFAULT_PACKAGE));
+    }
+}
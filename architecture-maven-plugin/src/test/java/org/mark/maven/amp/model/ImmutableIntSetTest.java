@@ -0,0 +1,77 @@
+package org.mark.maven.amp.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class ImmutableIntSetTest
+{
+    @Test
+    public void testEmpty()
+    {
+        assertThat(ImmutableIntSet.of().isEmpty(), is(true));
+        assertThat(ImmutableIntSet.EMPTY.contains(0), is(false));
+    }
+
+    @Test
+    public void testContains()
+    {
+        ImmutableIntSet set = ImmutableIntSet.of(3, 17, 1024, 0);
+
+        assertThat(set.contains(17), is(true));
+        assertThat(set.contains(0), is(true));
+        assertThat(set.contains(4), is(false));
+        assertThat(set.contains(SymbolTable.UNKNOWN), is(false));
+    }
+
+    @Test
+    public void testDuplicatesIgnored()
+    {
+        ImmutableIntSet set = ImmutableIntSet.of(5, 5, 9, 5);
+
+        assertThat(set.size(), is(2));
+        int[] members = set.toArray();
+        Arrays.sort(members);
+        assertThat(members, is(new int[] {5, 9}));
+    }
+
+    @Test
+    public void testManyMembers()
+    {
+        int[] values = IntStream.range(0, 500).map(i -> i * 31).toArray();
+        ImmutableIntSet set = ImmutableIntSet.of(values);
+
+        assertThat(set.size(), is(500));
+        assertThat(IntStream.of(values).allMatch(set::contains), is(true));
+        assertThat(set.contains(32), is(false));
+    }
+
+    @Test
+    public void testForEachVisitsEveryMember()
+    {
+        int[] sum = new int[1];
+        ImmutableIntSet.of(1, 2, 3).forEach(value -> sum[0] += value);
+
+        assertThat(sum[0], is(6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRejected()
+    {
+        ImmutableIntSet.of(1, -2);
+    }
+
+    @Test
+    public void testEquality()
+    {
+        assertThat(ImmutableIntSet.of(1, 2, 3), is(equalTo(ImmutableIntSet.of(3, 2, 1))));
+        assertThat(ImmutableIntSet.of(1, 2, 3).hashCode(), is(ImmutableIntSet.of(3, 2, 1).hashCode()));
+        assertThat(ImmutableIntSet.of(1, 2), is(not(equalTo(ImmutableIntSet.of(1, 2, 3)))));
+    }
+}
@@ -0,0 +1,63 @@
+package org.mark.maven.amp.model;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link NestedTypePolicy} tests against a concrete class with an abstract member type and a local class, and an
+ * interface without nested types.
+ */
+public class NestedTypePolicyTest
+{
+    private ModuleSource srcModule = aSourceModule().setName("nested").
+                    withClassDef(aClassDef("n.Outer").withNestedType(aClassDef("n.Outer$Member").setAbstract(true)).
+                                 withNestedType(aClassDef("n.Outer$1Local"))).
+                    withClassDef(aClassDef("n.Api").setAbstract(true)).build();
+
+    @Test
+    public void testTopLevel()
+    {
+        Component comp = new Component("nested", srcModule, NestedTypePolicy.TOP_LEVEL);
+
+        assertThat(comp.getNumClasses(), is(2));
+        assertThat(comp.getNumAbstractClasses(), is(1L));
+        assertThat(comp.getAbstraction(), is(0.5));
+    }
+
+    @Test
+    public void testMembers()
+    {
+        Component comp = new Component("nested", srcModule, NestedTypePolicy.MEMBERS);
+
+        assertThat(comp.getNumClasses(), is(3));
+        assertThat(comp.getNumAbstractClasses(), is(2L));
+    }
+
+    @Test
+    public void testAll()
+    {
+        Component comp = new Component("nested", srcModule, NestedTypePolicy.ALL);
+
+        assertThat(comp.getNumClasses(), is(4));
+        assertThat(comp.getAbstraction(), is(0.5));
+    }
+
+    @Test
+    public void testNestedTypesAreNotGraphNodes()
+    {
+        ClassGraph graph = new ClassGraph(TEST_SYMBOLS, Collections.singletonList(new Component("nested", srcModule,
+                                                                                  NestedTypePolicy.ALL)));
+
+        assertThat(graph.getNumClasses(), is(2));
+        ClassDef outer = graph.classAt(0);
+        assertThat(outer.getNestedTypes().get(1).isLocal(), is(true));
+        assertThat(outer.getNestedTypes().get(0).getFullQualName(), is("n.Outer$Member"));
+    }
+}
@@ -0,0 +1,117 @@
+package org.mark.maven.amp.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link ReactorIndex} unit tests. Uses the same component hierarchy as {@link ComponentTest} with an extra class in
+ * B that imports a class from its own component and a class from outside the reactor.
+ */
+public class ReactorIndexTest
+{
+    private ClassDef classA = aClassDef("classA").setAbstract(true).build();
+    private ClassDef classB = aClassDef("classB").withImport("classA").build();
+    private ClassDef classB2 = aClassDef("classB2").withImport("classB", String.class.getName()).build();
+    private ClassDef classC = aClassDef("classC").withImport("classB", "classD").build();
+    private ClassDef classD = aClassDef("classD").withImport("classB").build();
+    private Component compA = aComponent().setName("A").setSourceModule(aSourceModule().setName("srcModA").withClassDef(classA)).build();
+    private Component compB = aComponent().setName("B").setSourceModule(aSourceModule().setName("srcModB").withClassDef(classB).withClassDef(classB2)).build();
+    private Component compC = aComponent().setName("C").setSourceModule(aSourceModule().setName("srcModC").withClassDef(classC)).build();
+    private Component compD = aComponent().setName("D").setSourceModule(aSourceModule().setName("srcModD").withClassDef(classD)).build();
+
+    private List<Component> allComps = Stream.of(compA, compB, compC, compD).collect(Collectors.toList());
+
+    private ReactorIndex indexUnderTest = new ReactorIndex(TEST_SYMBOLS, allComps);
+
+    @Test
+    public void testOwnerOf()
+    {
+        assertThat(indexUnderTest.ownerOf("classB2"), is(compB));
+        assertThat(indexUnderTest.ownerOf(String.class.getName()), is(nullValue()));
+    }
+
+    @Test
+    public void testImportersOf()
+    {
+        assertThat(indexUnderTest.importersOf("classB"), containsInAnyOrder(classB2, classC, classD));
+        assertThat(indexUnderTest.importersOf("classC"), is(empty()));
+    }
+
+    @Test
+    public void testImportersOfIgnoresClassesOutsideReactor()
+    {
+        assertThat(indexUnderTest.importersOf(String.class.getName()), is(empty()));
+    }
+
+    @Test
+    public void testInstabilitiesInIndexOrder()
+    {
+        Map<Component, ComponentInstability> instabilities = indexUnderTest.instabilities();
+        assertThat(instabilities.keySet(), contains(compA, compB, compC, compD));
+    }
+
+    @Test
+    public void testInstabilitiesIgnoreImportsWithinComponent()
+    {
+        ComponentInstability instabilityB = indexUnderTest.instabilities().get(compB);
+        assertThat(instabilityB.getFanIn(), is(2));
+        assertThat(instabilityB.getFanOut(), is(1));
+        assertThat(instabilityB.getInCompDeps(), containsInAnyOrder(compC, compD));
+        assertThat(instabilityB.getOutCompDeps(), contains(compA));
+    }
+
+    @Test
+    public void testDependsUpon()
+    {
+        assertThat(indexUnderTest.dependsUpon(compC, compB), is(true));
+        assertThat(indexUnderTest.dependsUpon(compC, compD), is(true));
+        assertThat(indexUnderTest.dependsUpon(compC, compA), is(false));
+        assertThat(indexUnderTest.dependsUpon(compB, compB), is(false));
+    }
+
+    @Test
+    public void testDependents()
+    {
+        Map<ClassDef, Set<ClassDef>> dependents = indexUnderTest.dependents(compC, compB);
+
+        assertThat(dependents.keySet(), contains(classB));
+        assertThat(dependents.get(classB), contains(classC));
+        assertThat(indexUnderTest.dependents(compA, compB).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDependsUponMatchesComponentScan()
+    {
+        for(Component comp : allComps)
+        {
+            for(Component otherComp : allComps)
+            {
+                assertThat(comp.getName() + " -> " + otherComp.getName(),
+                           indexUnderTest.dependsUpon(comp, otherComp),
+                           is(comp != otherComp && comp.dependsUpon(otherComp)));
+            }
+        }
+    }
+
+    @Test
+    public void testOutCompDepsInIndexOrder()
+    {
+        assertThat(indexUnderTest.instabilities().get(compC).getOutCompDeps(), contains(compB, compD));
+    }
+}
@@ -0,0 +1,76 @@
+package org.mark.maven.amp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class SymbolTableTest
+{
+    private final SymbolTable tableUnderTest = new SymbolTable();
+
+    @Test
+    public void testInternIsStable()
+    {
+        int first = tableUnderTest.intern("org.a.ClassA");
+        int again = tableUnderTest.intern(new StringBuilder("org.a.").append("ClassA").toString());
+
+        assertThat(again, is(first));
+        assertThat(tableUnderTest.nameOf(first), is("org.a.ClassA"));
+    }
+
+    @Test
+    public void testIdsAreDense()
+    {
+        assertThat(tableUnderTest.intern("org.a.ClassA"), is(0));
+        assertThat(tableUnderTest.intern("org.a.ClassB"), is(1));
+        assertThat(tableUnderTest.size(), is(2));
+    }
+
+    @Test
+    public void testIdOfUnknownDoesNotIntern()
+    {
+        assertThat(tableUnderTest.idOf("org.a.Unknown"), is(SymbolTable.UNKNOWN));
+        assertThat(tableUnderTest.size(), is(0));
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity()
+    {
+        IntStream.range(0, 5000).forEach(i -> tableUnderTest.intern("org.a.Class" + i));
+
+        assertThat(tableUnderTest.nameOf(4999), is("org.a.Class4999"));
+        assertThat(tableUnderTest.idOf("org.a.Class1234"), is(1234));
+    }
+
+    @Test
+    public void testConcurrentInternAllocatesOneIdPerName() throws InterruptedException
+    {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++)
+        {
+            threads.add(new Thread(() -> IntStream.range(0, 2000).forEach(i -> ids.add(tableUnderTest.intern("n" + i)))));
+        }
+        for(Thread thread : threads)
+        {
+            thread.start();
+        }
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertThat(ids.size(), is(2000));
+        assertThat(tableUnderTest.size(), is(2000));
+        assertThat(tableUnderTest.nameOf(tableUnderTest.idOf("n42")), is("n42"));
+        assertThat(tableUnderTest.idOf("n42"), is(not(SymbolTable.UNKNOWN)));
+    }
+}
@@ -0,0 +1,84 @@
+package org.mark.maven.amp.report;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link ReportFormat} and {@link ReportWriter} tests against a two component reactor where B depends upon A.
+ */
+public class ReportFormatTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Component compA = aComponent().setName("A").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("a.Api").setAbstract(true))).
+                              build();
+    private Component compB = aComponent().setName("B\"quoted").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("b.Impl").withImport("a.Api", "java.util.List"))).
+                              build();
+    private ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(compA, compB));
+    private Map<Component, ComponentInstability> instabilities = index.instabilities();
+
+    @Test
+    public void testCsv() throws IOException
+    {
+        assertThat(lines(ReportFormat.CSV), contains("A,0.0,1.0,0.0", "B\"quoted,1.0,0.0,0.0"));
+    }
+
+    @Test
+    public void testJsonLines() throws IOException
+    {
+        assertThat(lines(ReportFormat.JSONL),
+                   contains("{\"component\":\"A\",\"classes\":1,\"abstractClasses\":1,\"fanIn\":1,\"fanOut\":0," +
+                            "\"instability\":0.0,\"abstraction\":1.0,\"distance\":0.0}",
+                            "{\"component\":\"B\\\"quoted\",\"classes\":1,\"abstractClasses\":0,\"fanIn\":0,\"fanOut\":1," +
+                            "\"instability\":1.0,\"abstraction\":0.0,\"distance\":0.0}"));
+    }
+
+    @Test
+    public void testClassEdgesIgnoreClassesOutsideReactor() throws IOException
+    {
+        assertThat(lines(ReportFormat.CLASS_EDGES),
+                   contains("importer,importerComponent,imported,importedComponent", "b.Impl,B\"quoted,a.Api,A"));
+    }
+
+    @Test
+    public void testWriteToCreatesOutputDirectory() throws IOException
+    {
+        Path outputDir = tmp.getRoot().toPath().resolve("target");
+
+        Path report = ReportFormat.CSV.writeTo(outputDir, index, instabilities);
+
+        assertThat(report, is(outputDir.resolve("mainsequence.csv")));
+        assertThat(Files.readAllLines(report, StandardCharsets.UTF_8), is(lines(ReportFormat.CSV)));
+    }
+
+    private List<String> lines(ReportFormat format) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        format.createReportWriter().write(index, instabilities, out);
+        return Arrays.asList(out.toString().split("\\R"));
+    }
+}
@@ -0,0 +1,191 @@
+package org.mark.maven.amp.scanner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.ClassDefCreator;
+import org.mark.maven.amp.ClassDefCreator.ClassDefCreationException;
+import org.mark.maven.amp.javaparser.JavaParserClassDefCreator;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.SymbolTable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Checks the {@link HeaderScanningClassDefCreator} produces the same {@link ClassDef} instances as the
+ * {@link JavaParserClassDefCreator}.
+ */
+public class HeaderScanningClassDefCreatorTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final SymbolTable symbols = new SymbolTable();
+    private final ClassDefCreator scanner = new HeaderScanningClassDefCreator(symbols);
+    private final ClassDefCreator javaParser = new JavaParserClassDefCreator(symbols);
+
+    private Path source(String... lines) throws IOException
+    {
+        Path srcFile = tmp.newFile().toPath();
+        return Files.write(srcFile, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> describe(List<ClassDef> classDefs)
+    {
+        return classDefs.stream().map(HeaderScanningClassDefCreatorTest::describe).collect(Collectors.toList());
+    }
+
+    private static String describe(ClassDef classDef)
+    {
+        String description = classDef.getFullQualName() + "|" + classDef.isAbstract() + "|" +
+                             new TreeSet<>(classDef.getImports());
+        if(!classDef.getNestedTypes().isEmpty())
+        {
+            description += classDef.getNestedTypes().stream().
+                                    map(nested -> nested.getFullQualName() + "|" + nested.isAbstract()).
+                                    collect(Collectors.joining(", ", " ", ""));
+        }
+        return description;
+    }
+
+    private List<String> assertSameAsJavaParser(Path srcFile) throws ClassDefCreationException
+    {
+        List<String> expected = describe(javaParser.createClassDefFor(srcFile));
+        List<String> actual = describe(scanner.createClassDefFor(srcFile));
+        assertThat(srcFile.toString(), actual, is(expected));
+        return actual;
+    }
+
+    @Test
+    public void testImportForms() throws Exception
+    {
+        List<String> classDefs = assertSameAsJavaParser(source(
+            "package org.a;",
+            "import java.util.List;",
+            "import java.util.concurrent.*;",
+            "import static java.lang.Math.max;",
+            "import static java.util.Collections.*;",
+            "import org.b /* split */ .Other;",
+            "public class Simple {}"));
+
+        assertThat(classDefs, contains("org.a.Simple|false|[java.lang.Math.max, java.util.Collections, " +
+                                       "java.util.List, java.util.concurrent, org.b.Other]"));
+    }
+
+    @Test
+    public void testAbstractInterfaceAndEnum() throws Exception
+    {
+        assertSameAsJavaParser(source(
+            "package org.a;",
+            "@Deprecated",
+            "public abstract class Base<T extends Comparable<T>> {",
+            "    abstract void run();",
+            "    static class NotAbstract {}",
+            "}",
+            "interface Api { abstract void call(); }",
+            "enum Colour { RED, GREEN }"));
+    }
+
+    @Test
+    public void testNestedLocalAndAnonymousTypes() throws Exception
+    {
+        List<String> classDefs = assertSameAsJavaParser(source(
+            "package org.a;",
+            "public class Outer {",
+            "    interface Inner {}",
+            "    enum Mode { ON, OFF; }",
+            "    void method() {",
+            "        class Local {}",
+            "        Runnable r = new Runnable() { public void run() {} };",
+            "    }",
+            "    static abstract class Deep { class Deeper {} }",
+            "    void other() { class Local { class InLocal {} } }",
+            "}"));
+
+        assertThat(classDefs, contains("org.a.Outer|false|[] org.a.Outer$Inner|true, org.a.Outer$Mode|false, " +
+                                       "org.a.Outer$1Local|false, org.a.Outer$Deep|true, org.a.Outer$Deep$Deeper|false, " +
+                                       "org.a.Outer$2Local|false, org.a.Outer$2Local$InLocal|false"));
+    }
+
+    @Test
+    public void testKeywordsInLiteralsCommentsAndClassLiterals() throws Exception
+    {
+        List<String> classDefs = assertSameAsJavaParser(source(
+            "package org.a;",
+            "// class CommentedOut {}",
+            "/* interface AlsoCommentedOut { } */",
+            "@SuppressWarnings(value = \"class InString\")",
+            "public class Literals {",
+            "    Class<?> type = Literals.class;",
+            "    String s = \"enum InString { \\\" }\";",
+            "    char brace = '{';",
+            "    char quote = '\\'';",
+            "    @interface Marker { Class<?> value() default Object.class; }",
+            "    double d = 1.5e10;",
+            "}"));
+
+        assertThat(classDefs, contains("org.a.Literals|false|[] org.a.Literals$Marker|true"));
+    }
+
+    @Test
+    public void testTextBlocks() throws Exception
+    {
+        List<String> classDefs = assertSameAsJavaParser(source(
+            "package p;",
+            "class A {",
+            "    String s = \"\"\"",
+            "        { \"class\": \"x\",",
+            "        \\\"\"\" interface Escaped {",
+            "        \"\"\";",
+            "    String empty = \"\";",
+            "    class Inner {}",
+            "}",
+            "class B {}"));
+
+        assertThat(classDefs, contains("p.A|false|[] p.A$Inner|false", "p.B|false|[]"));
+    }
+
+    @Test
+    public void testRecordsAnnotationTypesAndDefaultPackage() throws Exception
+    {
+        List<String> classDefs = assertSameAsJavaParser(source(
+            "import java.util.List;",
+            "record Point(int x, int y) {",
+            "    record Pair<T>(T first, T second) {}",
+            "    static Point of(List<Integer> record) { int[] values = {record.get(0)}; return new Point(values[0], 0); }",
+            "}",
+            "@interface Marker { String value(); }"));
+
+        assertThat(classDefs, contains("Point|false|[java.util.List] Point$Pair|false", "Marker|true|[java.util.List]"));
+    }
+
+    @Test
+    public void testMatchesJavaParserOnPluginSources() throws Exception
+    {
+        List<Path> srcs;
+        try (Stream<Path> files = Stream.concat(Files.walk(Paths.get("src", "main", "java")),
+                                                Files.walk(Paths.get("src", "test", "java"))))
+        {
+            srcs = files.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+        }
+
+        assertThat(srcs.size(), is(greaterThan(10)));
+        for(Path srcFile : srcs)
+        {
+            assertSameAsJavaParser(srcFile);
+        }
+    }
+}
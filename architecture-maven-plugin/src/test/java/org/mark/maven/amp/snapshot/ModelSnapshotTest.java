@@ -0,0 +1,120 @@
+package org.mark.maven.amp.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ComponentInstability;
+import org.mark.maven.amp.model.ReactorIndex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link ModelSnapshot} tests against a component B with two classes, one with an abstract nested type, depending upon
+ * an abstract component A.
+ */
+public class ModelSnapshotTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Component compA = aComponent().setName("A").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("a.A").setAbstract(true))).build();
+    private Component compB = aComponent().setName("B").
+                              setSourceModule(aSourceModule().withClassDef(aClassDef("b.B").withImport("a.A", "java.util.List").
+                                                           withNestedType(aClassDef("b.B$Inner").setAbstract(true))).
+                                              withClassDef(aClassDef("b.Other"))).build();
+    private ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(compA, compB));
+    private Map<Component, ComponentInstability> instabilities = index.instabilities();
+    private Path snapshotFile;
+
+    @Before
+    public void writeSnapshot() throws IOException
+    {
+        snapshotFile = tmp.getRoot().toPath().resolve("target").resolve("amp-snapshot.bin");
+        ModelSnapshot.write(snapshotFile, index, instabilities);
+    }
+
+    @Test
+    public void testComponentsRoundTrip() throws IOException
+    {
+        ModelSnapshot snapshot = ModelSnapshot.open(snapshotFile);
+
+        assertThat(snapshot.getNumComponents(), is(2));
+        assertThat(snapshot.componentName(0), is("A"));
+        assertThat(snapshot.componentName(1), is("B"));
+        assertThat(snapshot.fanIn(0), is(instabilities.get(compA).getFanIn()));
+        assertThat(snapshot.fanOut(1), is(instabilities.get(compB).getFanOut()));
+        assertThat(snapshot.instability(1), is(instabilities.get(compB).getInstabilityValue()));
+        assertThat(snapshot.abstraction(0), is(1.0));
+        assertThat(snapshot.distance(1), is(instabilities.get(compB).getDistance()));
+        assertThat(snapshot.numAbstractClasses(0), is(1));
+        assertThat(snapshot.componentDependencies(1)[0], is(0));
+        assertThat(snapshot.componentDependencies(0).length, is(0));
+    }
+
+    @Test
+    public void testClassesRoundTrip() throws IOException
+    {
+        ModelSnapshot snapshot = ModelSnapshot.open(snapshotFile);
+
+        assertThat(snapshot.getNumClasses(), is(4));
+        assertThat(snapshot.componentClassStart(1), is(1));
+        assertThat(snapshot.componentClassEnd(1), is(4));
+        assertThat(snapshot.className(0), is("a.A"));
+        assertThat(snapshot.isAbstract(0), is(true));
+        List<ClassDef> classDefs = snapshot.classDefs(TEST_SYMBOLS, 1);
+        assertThat(classDefs.get(0).getFullQualName(), is("b.B"));
+        assertThat(classDefs.get(0).getImports(), containsInAnyOrder("a.A", "java.util.List"));
+        assertThat(classDefs.get(1).getImports().isEmpty(), is(true));
+        assertThat(classDefs.size(), is(2));
+    }
+
+    @Test
+    public void testNestedTypesRoundTrip() throws IOException
+    {
+        ModelSnapshot snapshot = ModelSnapshot.open(snapshotFile);
+
+        assertThat(snapshot.isNested(2), is(true));
+        assertThat(snapshot.isNested(3), is(false));
+        ClassDef outer = snapshot.classDefs(TEST_SYMBOLS, 1).get(0);
+        ClassDef inner = outer.getNestedTypes().get(0);
+        assertThat(outer.getNestedTypes().size(), is(1));
+        assertThat(inner.getFullQualName(), is("b.B$Inner"));
+        assertThat(inner.isAbstract(), is(true));
+        assertThat(inner.getImportIds(), is(outer.getImportIds()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenRejectsOtherFiles() throws IOException
+    {
+        Path notASnapshot = tmp.newFile().toPath();
+        Files.write(notASnapshot, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        ModelSnapshot.open(notASnapshot);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenRejectsTruncatedFiles() throws IOException
+    {
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 1));
+
+        ModelSnapshot.open(snapshotFile);
+    }
+}
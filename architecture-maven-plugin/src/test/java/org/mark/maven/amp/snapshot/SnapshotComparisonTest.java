@@ -0,0 +1,89 @@
+package org.mark.maven.amp.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mark.maven.amp.model.Component;
+import org.mark.maven.amp.model.ReactorIndex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.TEST_SYMBOLS;
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
+import static org.mark.maven.amp.testsupport.ComponentBuilder.aComponent;
+import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
+
+/**
+ * {@link SnapshotComparison} tests from a previous reactor where B depends upon an abstract A and C stands alone, to
+ * one where B depends upon a concrete A, C is gone and D is new.
+ */
+public class SnapshotComparisonTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testCompare() throws IOException
+    {
+        ModelSnapshot previous = snapshot("previous.bin",
+                                          aComponent().setName("A").setSourceModule(aSourceModule().
+                                                          withClassDef(aClassDef("a.A").setAbstract(true))).build(),
+                                          aComponent().setName("B").setSourceModule(aSourceModule().
+                                                          withClassDef(aClassDef("b.B").withImport("a.A"))).build(),
+                                          aComponent().setName("C").setSourceModule(aSourceModule().
+                                                          withClassDef(aClassDef("c.C"))).build());
+        ModelSnapshot current = snapshot("current.bin",
+                                         aComponent().setName("A").setSourceModule(aSourceModule().
+                                                         withClassDef(aClassDef("a.A"))).build(),
+                                         aComponent().setName("B").setSourceModule(aSourceModule().
+                                                         withClassDef(aClassDef("b.B").withImport("a.A", "d.D"))).build(),
+                                         aComponent().setName("D").setSourceModule(aSourceModule().
+                                                         withClassDef(aClassDef("d.D"))).build());
+
+        List<ModuleDrift> drifts = SnapshotComparison.compare(previous, current);
+
+        assertThat(drifts.size(), is(4));
+        ModuleDrift driftA = drifts.get(0);
+        assertThat(driftA.getName(), is("A"));
+        assertThat(driftA.getPreviousDistance(), is(0.0));
+        assertThat(driftA.getDistance(), is(1.0));
+        assertThat(driftA.getDistanceIncrease(), is(1.0));
+        ModuleDrift driftB = drifts.get(1);
+        assertThat(driftB.getAddedDependencies(), contains("D"));
+        assertThat(driftB.getRemovedDependencies(), is(empty()));
+        assertThat(driftB.hasChanged(), is(true));
+        assertThat(drifts.get(2).getName(), is("D"));
+        assertThat(drifts.get(2).isAdded(), is(true));
+        assertThat(drifts.get(3).getName(), is("C"));
+        assertThat(drifts.get(3).isRemoved(), is(true));
+        assertThat(Double.isNaN(drifts.get(3).getDistanceIncrease()), is(true));
+    }
+
+    @Test
+    public void testUnchanged() throws IOException
+    {
+        Component compA = aComponent().setName("A").setSourceModule(aSourceModule().
+                        withClassDef(aClassDef("a.A"))).build();
+
+        List<ModuleDrift> drifts = SnapshotComparison.compare(snapshot("previous.bin", compA),
+                                                              snapshot("current.bin", compA));
+
+        assertThat(drifts.get(0).hasChanged(), is(false));
+        assertThat(drifts.get(0).getDistanceIncrease(), is(0.0));
+    }
+
+    private ModelSnapshot snapshot(String fileName, Component... components) throws IOException
+    {
+        ReactorIndex index = new ReactorIndex(TEST_SYMBOLS, Arrays.asList(components));
+        Path snapshotFile = tmp.getRoot().toPath().resolve(fileName);
+        ModelSnapshot.write(snapshotFile, index, index.instabilities());
+        return ModelSnapshot.open(snapshotFile);
+    }
+}
@@ -1,16 +1,25 @@
 package org.mark.maven.amp.testsupport;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.mark.maven.amp.model.ClassDef;
+import org.mark.maven.amp.model.ImmutableIntSet;
+import org.mark.maven.amp.model.SymbolTable;
 
 public final class ClassDefBuilder
 {
+    /** Classes built without a table of their own share this one, so the classes of a test can be indexed together. */
+    public static final SymbolTable TEST_SYMBOLS = new SymbolTable();
+
+    private SymbolTable symbols = TEST_SYMBOLS;
     private String name;
     private Set<String> imports = new HashSet<>();
     private boolean isAbstract;
+    private List<ClassDefBuilder> nestedTypes = new ArrayList<>();
 
 
     public ClassDefBuilder(String className)
@@ -18,6 +27,12 @@ public final class ClassDefBuilder
         name = className;
     }
 
+    public ClassDefBuilder withSymbols(SymbolTable symbolTable)
+    {
+        symbols = symbolTable;
+        return this;
+    }
+
     public ClassDefBuilder withImport(String fullClassName)
     {
         imports.add(fullClassName);
@@ -36,9 +51,25 @@ public final class ClassDefBuilder
         return this;
     }
 
+    /**
+     * @param nestedType a type nested in this one, given its binary name. Its imports are ignored, nested types share
+     *            their owner's.
+     */
+    public ClassDefBuilder withNestedType(ClassDefBuilder nestedType)
+    {
+        nestedTypes.add(nestedType);
+        return this;
+    }
+
     public ClassDef build()
     {
-        return new ClassDef(name, imports, isAbstract);
+        ImmutableIntSet importIds = symbols.internAll(imports);
+        List<ClassDef> nested = new ArrayList<>();
+        for(ClassDefBuilder nestedType : nestedTypes)
+        {
+            nested.add(new ClassDef(symbols, nestedType.name, importIds, nestedType.isAbstract));
+        }
+        return new ClassDef(symbols, name, importIds, isAbstract, nested);
     }
 
     public static ClassDefBuilder aClassDef(String name)
@@ -3,6 +3,7 @@ package org.mark.maven.amp.testsupport;
 import org.mark.maven.amp.model.Component;
 import org.mark.maven.amp.model.ModuleSource;
 
+import static org.mark.maven.amp.testsupport.ClassDefBuilder.aClassDef;
 import static org.mark.maven.amp.testsupport.ModuleSourceBuilder.aSourceModule;
 
 public class ComponentBuilder
@@ -38,4 +39,15 @@ public class ComponentBuilder
         return new ComponentBuilder();
     }
 
+    /**
+     * @param name the component name, its one class is the name in the lower cased package, e.g. a.A for A.
+     * @param imports the fully qualified imports of the class.
+     * @return a component of a single class.
+     */
+    public static Component aSingleClassComponent(String name, String... imports)
+    {
+        return aComponent().setName(name).setSourceModule(aSourceModule().
+                        withClassDef(aClassDef(name.toLowerCase() + "." + name).withImport(imports))).build();
+    }
+
 }